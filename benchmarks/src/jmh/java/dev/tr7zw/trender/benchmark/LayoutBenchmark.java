@@ -0,0 +1,112 @@
+package dev.tr7zw.trender.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import dev.tr7zw.trender.gui.widget.WBox;
+import dev.tr7zw.trender.gui.widget.WGridPanel;
+import dev.tr7zw.trender.gui.widget.WPlainPanel;
+import dev.tr7zw.trender.gui.widget.WWidget;
+import dev.tr7zw.trender.gui.widget.data.Axis;
+
+/**
+ * Measures hit testing and layout of plain widget trees. The trees only contain
+ * panels and resizable empty widgets, so nothing touches the client.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LayoutBenchmark {
+    private static final int CELL = 18;
+    private static final int COLUMNS = 32;
+
+    /** The number of children of the wide trees, and the depth of the deep tree. */
+    @Param({ "16", "256", "4096" })
+    public int size;
+
+    private WPlainPanel wide;
+    private WPlainPanel deep;
+    private WBox box;
+    private WGridPanel grid;
+    private int deepHitOffset;
+
+    @Setup
+    public void setup() {
+        wide = new WPlainPanel();
+        for (int i = 0; i < size; i++) {
+            wide.add(new Sized(), (i % COLUMNS) * CELL, (i / COLUMNS) * CELL, CELL, CELL);
+        }
+
+        // Capped so the nesting doesn't overflow the stack
+        int depth = Math.min(size, 512);
+        deep = new WPlainPanel();
+        WPlainPanel parent = deep;
+        for (int i = 0; i < depth; i++) {
+            WPlainPanel child = new WPlainPanel();
+            int extent = (depth - i) * 2 + CELL;
+            parent.add(child, 1, 1, extent, extent);
+            parent = child;
+        }
+        parent.add(new Sized(), 1, 1, CELL, CELL);
+        deepHitOffset = depth + 2;
+
+        box = new WBox(Axis.VERTICAL);
+        for (int i = 0; i < size; i++) {
+            box.add(new Sized(), CELL * 4, CELL);
+        }
+
+        grid = new WGridPanel();
+        for (int i = 0; i < size; i++) {
+            grid.add(new Sized(), i % COLUMNS, i / COLUMNS);
+        }
+    }
+
+    @Benchmark
+    public WWidget hitWideFirstChild() {
+        // Children are hit tested backwards, so the first one is the slowest
+        return wide.hit(1, 1);
+    }
+
+    @Benchmark
+    public WWidget hitWideMiss() {
+        return wide.hit(COLUMNS * CELL + 1, 0);
+    }
+
+    @Benchmark
+    public WWidget hitDeepLeaf() {
+        return deep.hit(deepHitOffset, deepHitOffset);
+    }
+
+    @Benchmark
+    public WBox layoutBox() {
+        box.layout();
+        return box;
+    }
+
+    @Benchmark
+    public WGridPanel layoutGrid() {
+        grid.layout();
+        return grid;
+    }
+
+    @Benchmark
+    public WPlainPanel layoutDeep() {
+        deep.layout();
+        return deep;
+    }
+
+    private static final class Sized extends WWidget {
+        @Override
+        public boolean canResize() {
+            return true;
+        }
+    }
+}
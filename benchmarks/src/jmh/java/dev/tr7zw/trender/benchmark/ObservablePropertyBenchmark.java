@@ -0,0 +1,68 @@
+package dev.tr7zw.trender.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dev.tr7zw.trender.gui.widget.data.ObservableProperty;
+import dev.tr7zw.trender.gui.widget.data.ObservableView;
+
+/**
+ * Measures changing an observable property with a number of listeners, and
+ * reading a computed view of it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ObservablePropertyBenchmark {
+    private static final Integer FIRST = 1;
+    private static final Integer SECOND = 2;
+
+    @Param({ "0", "1", "8", "64" })
+    public int listeners;
+
+    private ObservableProperty<Integer> property;
+    private ObservableView<Integer> doubled;
+    private boolean toggle;
+    private int notifications;
+
+    @Setup
+    public void setup() {
+        property = ObservableProperty.of(FIRST).build();
+        for (int i = 0; i < listeners; i++) {
+            property.addListener((view, from, to) -> notifications++);
+        }
+        doubled = ObservableView.computed(() -> property.get() * 2);
+    }
+
+    @Benchmark
+    public int set() {
+        toggle = !toggle;
+        property.set(toggle ? SECOND : FIRST);
+        return notifications;
+    }
+
+    @Benchmark
+    public void setInBatch(Blackhole blackhole) {
+        ObservableProperty.batch(() -> {
+            toggle = !toggle;
+            property.set(toggle ? SECOND : FIRST);
+            blackhole.consume(doubled.get());
+        });
+    }
+
+    @Benchmark
+    public Integer setAndReadComputed() {
+        toggle = !toggle;
+        property.set(toggle ? SECOND : FIRST);
+        return doubled.get();
+    }
+}
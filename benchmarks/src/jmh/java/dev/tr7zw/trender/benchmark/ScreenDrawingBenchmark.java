@@ -0,0 +1,66 @@
+package dev.tr7zw.trender.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import dev.tr7zw.trender.gui.client.ScreenDrawing;
+
+/**
+ * Measures the color math of {@link ScreenDrawing} over a batch of colors,
+ * like the panel shading done for every painted panel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ScreenDrawingBenchmark {
+    private static final int COLORS = 1024;
+
+    private final int[] colors = new int[COLORS];
+    private final float[] amounts = new float[COLORS];
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < COLORS; i++) {
+            colors[i] = random.nextInt();
+            amounts[i] = (float) random.nextDouble(0, 2);
+        }
+    }
+
+    @Benchmark
+    public int multiplyColor() {
+        int hash = 0;
+        for (int i = 0; i < COLORS; i++) {
+            hash += ScreenDrawing.multiplyColor(colors[i], amounts[i]);
+        }
+        return hash;
+    }
+
+    @Benchmark
+    public int colorAtOpacity() {
+        int hash = 0;
+        for (int i = 0; i < COLORS; i++) {
+            hash += ScreenDrawing.colorAtOpacity(colors[i], amounts[i] - 0.5f);
+        }
+        return hash;
+    }
+
+    @Benchmark
+    public int panelShading() {
+        // The shadow and highlight colors of drawGuiPanel
+        int hash = 0;
+        for (int i = 0; i < COLORS; i++) {
+            hash += ScreenDrawing.multiplyColor(colors[i], 0.50f);
+            hash += ScreenDrawing.multiplyColor(colors[i], 1.25f);
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,24 @@
+package dev.tr7zw.trender.gui;
+
+/**
+ * The summary of a bulk item transfer.
+ *
+ * @param movedItems  the total number of items that were moved
+ * @param moves       the number of individual stack moves between two slots
+ * @param sourceSlots the number of source slots items were taken from
+ * @param targetSlots the number of target slots items were put into
+ * @see SyncedGuiDescription#moveAllMatching
+ */
+public record BulkTransferResult(int movedItems, int moves, int sourceSlots, int targetSlots) {
+    /**
+     * A result where nothing was moved.
+     */
+    public static final BulkTransferResult NONE = new BulkTransferResult(0, 0, 0, 0);
+
+    /**
+     * {@return whether any items were moved}
+     */
+    public boolean hasMoved() {
+        return movedItems > 0;
+    }
+}
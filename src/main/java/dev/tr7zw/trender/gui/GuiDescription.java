@@ -52,6 +52,22 @@ public interface GuiDescription {
      */
     public void addSlotPeer(ValidatedSlot slot);
 
+    /**
+     * Typical users won't call this. Asks this gui to keep a slot peer that was
+     * added by an earlier validation, instead of adding a new one. Slot widgets
+     * that get {@code true} for all of their peers only reposition them.
+     *
+     * <p>
+     * The default implementation never keeps peers.
+     *
+     * @param slot the existing slot peer
+     * @return true if the peer is still registered and was kept, false if the slot
+     *         widget must create new peers
+     */
+    default boolean keepSlotPeer(ValidatedSlot slot) {
+        return false;
+    }
+
     /**
      * Guis should use this method to add clientside styles and BackgroundPainters
      * to their controls
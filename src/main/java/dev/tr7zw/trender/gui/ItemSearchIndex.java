@@ -0,0 +1,342 @@
+package dev.tr7zw.trender.gui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+import dev.tr7zw.trender.gui.widget.WItemSlot;
+import dev.tr7zw.trender.gui.widget.WTextField;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+//#if MC >= 11903
+import net.minecraft.core.registries.BuiltInRegistries;
+//#else
+//$$ import net.minecraft.core.Registry;
+//#endif
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.Container;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+
+/**
+ * An incremental search index over the item stacks of a {@link Container}.
+ *
+ * <p>
+ * Each stack is indexed by its item ID, the words of its display name and, on
+ * versions that support it, its item tags. A search query is split into terms
+ * that all have to match a stack. A term matches a stack if it is a prefix of
+ * one of its words or, for terms of at least three characters, if it is
+ * contained in one of them. Contained terms are looked up through a trigram
+ * index, so a search only touches the words that can actually match.
+ *
+ * <p>
+ * The index is updated per slot with {@link #update(int)}, typically from the
+ * change listener of a slot widget (see {@link #attach(WItemSlot)}), instead of
+ * being rebuilt for every query. It's not thread-safe.
+ *
+ * <p>
+ * Example of a filtered slot grid:
+ *
+ * <pre>
+ * {@code
+ * ItemSearchIndex index = new ItemSearchIndex(storage);
+ * index.bind(searchField, storageSlots);
+ * }
+ * </pre>
+ */
+public final class ItemSearchIndex {
+    private static final String[] NO_TOKENS = new String[0];
+    private static final int GRAM = 3;
+
+    private final Container container;
+    private String[][] slotTokens = new String[0][];
+    /** The slots containing each token. */
+    private final NavigableMap<String, BitSet> slotsByToken = new TreeMap<>();
+    /** The tokens containing each trigram. */
+    private final Map<String, Set<String>> tokensByTrigram = new HashMap<>();
+    /** The tokens of each item that don't depend on the stack. */
+    private final Map<Item, String[]> itemTokens = new IdentityHashMap<>();
+    private int version = 0;
+
+    /**
+     * Constructs a search index and indexes the current contents of a container.
+     *
+     * @param container the indexed container
+     */
+    public ItemSearchIndex(Container container) {
+        this.container = Objects.requireNonNull(container, "container");
+        rebuild();
+    }
+
+    /**
+     * {@return the indexed container}
+     */
+    public Container getContainer() {
+        return container;
+    }
+
+    /**
+     * Indexes all slots of the container again.
+     */
+    public void rebuild() {
+        slotsByToken.clear();
+        tokensByTrigram.clear();
+        slotTokens = new String[container.getContainerSize()][];
+        Arrays.fill(slotTokens, NO_TOKENS);
+        for (int i = 0; i < slotTokens.length; i++) {
+            update(i);
+        }
+        version++;
+    }
+
+    /**
+     * Indexes a single slot again after its stack has changed.
+     *
+     * @param index the index of the slot in the container
+     */
+    public void update(int index) {
+        if (index < 0)
+            return;
+        if (index >= slotTokens.length) {
+            if (index >= container.getContainerSize())
+                return;
+            int oldLength = slotTokens.length;
+            slotTokens = Arrays.copyOf(slotTokens, container.getContainerSize());
+            Arrays.fill(slotTokens, oldLength, slotTokens.length, NO_TOKENS);
+        }
+
+        String[] tokens = tokenize(container.getItem(index));
+        String[] previous = slotTokens[index];
+        if (Arrays.equals(tokens, previous))
+            return;
+
+        for (String token : previous) {
+            BitSet slots = slotsByToken.get(token);
+            slots.clear(index);
+            if (slots.isEmpty()) {
+                slotsByToken.remove(token);
+                forEachTrigram(token, gram -> {
+                    Set<String> gramTokens = tokensByTrigram.get(gram);
+                    gramTokens.remove(token);
+                    if (gramTokens.isEmpty())
+                        tokensByTrigram.remove(gram);
+                });
+            }
+        }
+
+        for (String token : tokens) {
+            BitSet slots = slotsByToken.get(token);
+            if (slots == null) {
+                slots = new BitSet();
+                slotsByToken.put(token, slots);
+                forEachTrigram(token, gram -> tokensByTrigram.computeIfAbsent(gram, k -> new HashSet<>()).add(token));
+            }
+            slots.set(index);
+        }
+
+        slotTokens[index] = tokens;
+        version++;
+    }
+
+    /**
+     * Searches the container.
+     *
+     * @param query the search query
+     * @return the indices of the matching slots in ascending order, or all slot
+     *         indices if the query is blank
+     */
+    public IntList search(String query) {
+        BitSet matches = searchSlots(query);
+        IntArrayList result = new IntArrayList(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            result.add(i);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a predicate that tests whether a slot matches a search query. The
+     * predicate stays up to date when the index changes.
+     *
+     * @param query the search query
+     * @return the predicate, which accepts every slot if the query is blank
+     */
+    public IntPredicate matcher(String query) {
+        String[] terms = toTerms(query);
+        if (terms.length == 0)
+            return index -> true;
+
+        return new IntPredicate() {
+            private BitSet matches;
+            private int matchesVersion;
+
+            @Override
+            public boolean test(int index) {
+                if (matches == null || matchesVersion != version) {
+                    matches = searchSlots(terms);
+                    matchesVersion = version;
+                }
+                return matches.get(index);
+            }
+        };
+    }
+
+    /**
+     * Keeps this index up to date with the stacks shown by a slot widget. Only
+     * the slots of the widget that belong to this index's container are
+     * indexed; changes to other slots need to be reported with
+     * {@link #update(int)}.
+     *
+     * @param slot the slot widget
+     */
+    public void attach(WItemSlot slot) {
+        slot.addChangeListener((s, inventory, index, stack) -> {
+            if (inventory == container)
+                update(index);
+        });
+    }
+
+    /**
+     * Filters the slots shown by a slot widget with the text of a search field.
+     * The widget is {@linkplain #attach(WItemSlot) attached} to this index, and
+     * the filter is updated when the text or the slot contents change.
+     *
+     * <p>
+     * This replaces the {@linkplain WTextField#setChangedListener change
+     * listener} of the text field.
+     *
+     * @param field the search field
+     * @param slot  the filtered slot widget
+     */
+    public void bind(WTextField field, WItemSlot slot) {
+        slot.addChangeListener((s, inventory, index, stack) -> {
+            if (inventory == container) {
+                update(index);
+                s.refreshDisplayFilter();
+            }
+        });
+        slot.setDisplayFilter(matcher(field.getText()));
+        field.setChangedListener(text -> slot.setDisplayFilter(matcher(text)));
+    }
+
+    private BitSet searchSlots(String query) {
+        String[] terms = toTerms(query);
+        if (terms.length == 0) {
+            BitSet all = new BitSet(slotTokens.length);
+            all.set(0, slotTokens.length);
+            return all;
+        }
+        return searchSlots(terms);
+    }
+
+    private BitSet searchSlots(String[] terms) {
+        BitSet result = null;
+        for (String term : terms) {
+            BitSet termMatches = matchTerm(term);
+            if (result == null) {
+                result = termMatches;
+            } else {
+                result.and(termMatches);
+            }
+            if (result.isEmpty())
+                break;
+        }
+        return result;
+    }
+
+    private BitSet matchTerm(String term) {
+        BitSet matches = new BitSet();
+        if (term.length() < GRAM) {
+            // Too short for trigrams, match word prefixes
+            for (BitSet slots : slotsByToken.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                matches.or(slots);
+            }
+            return matches;
+        }
+
+        // Start from the rarest trigram of the term
+        Set<String> candidates = null;
+        for (int i = 0; i + GRAM <= term.length(); i++) {
+            Set<String> gramTokens = tokensByTrigram.get(term.substring(i, i + GRAM));
+            if (gramTokens == null)
+                return matches;
+            if (candidates == null || gramTokens.size() < candidates.size())
+                candidates = gramTokens;
+        }
+
+        for (String token : candidates) {
+            if (token.contains(term)) {
+                matches.or(slotsByToken.get(token));
+            }
+        }
+        return matches;
+    }
+
+    private static String[] toTerms(String query) {
+        String trimmed = query.trim().toLowerCase(Locale.ROOT);
+        return trimmed.isEmpty() ? NO_TOKENS : trimmed.split("\\s+");
+    }
+
+    private String[] tokenize(ItemStack stack) {
+        if (stack.isEmpty())
+            return NO_TOKENS;
+
+        Set<String> tokens = new HashSet<>();
+        for (String token : itemTokens.computeIfAbsent(stack.getItem(), item -> tokenizeItem(stack))) {
+            tokens.add(token);
+        }
+        addWords(tokens, stack.getHoverName().getString().toLowerCase(Locale.ROOT));
+
+        String[] result = tokens.toArray(NO_TOKENS);
+        // Sorted so that equal token sets can be compared cheaply
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static String[] tokenizeItem(ItemStack stack) {
+        List<String> tokens = new ArrayList<>();
+        //#if MC >= 11903
+        ResourceLocation id = BuiltInRegistries.ITEM.getKey(stack.getItem());
+        //#else
+        //$$ ResourceLocation id = Registry.ITEM.getKey(stack.getItem());
+        //#endif
+        tokens.add(id.toString());
+        tokens.add(id.getPath());
+        addWords(tokens, id.getPath().replace('_', ' '));
+
+        //#if MC >= 11802
+        stack.getTags().forEach(tag -> {
+            ResourceLocation tagId = tag.location();
+            tokens.add("#" + tagId);
+            tokens.add("#" + tagId.getPath());
+        });
+        //#endif
+        return tokens.toArray(NO_TOKENS);
+    }
+
+    private static void addWords(Collection<String> tokens, String text) {
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty())
+                tokens.add(word);
+        }
+    }
+
+    private static void forEachTrigram(String token, Consumer<String> action) {
+        for (int i = 0; i + GRAM <= token.length(); i++) {
+            action.accept(token.substring(i, i + GRAM));
+        }
+    }
+}
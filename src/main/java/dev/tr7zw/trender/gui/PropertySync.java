@@ -0,0 +1,342 @@
+package dev.tr7zw.trender.gui;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+import dev.tr7zw.trender.gui.impl.LibGuiCommon;
+import dev.tr7zw.trender.gui.networking.MessageCodec;
+import dev.tr7zw.trender.gui.networking.NetworkSide;
+import dev.tr7zw.trender.gui.networking.ScreenNetworking;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.inventory.ContainerData;
+
+/**
+ * Syncs numeric properties of a GUI from the server to the client with delta
+ * frames.
+ *
+ * <p>
+ * Compared to vanilla {@link ContainerData} syncing, which sends every changed
+ * property as a separate packet truncated to 16 bits, this sync sends full
+ * int and long values. Once per tick, all properties that changed are sent
+ * together in one {@linkplain ScreenNetworking screen message}: a bitmask of
+ * the changed properties followed by their values as variable-length numbers.
+ * Each property can have its own update interval, so slowly changing
+ * statistics don't have to be checked every tick.
+ *
+ * <p>
+ * The frames use the screen message packet of {@link ScreenNetworking}, so
+ * they're ordered with the other messages of the GUI. When the server resends
+ * the whole menu state, for example after a desync, all properties are sent
+ * again with the next frame.
+ *
+ * <p>
+ * Properties are identified by the order in which they're added, so they must
+ * be added in the same order on both sides, usually in the constructor of the
+ * GUI description. On the server, the value suppliers are read; on the client,
+ * the received values are returned instead.
+ *
+ * <p>
+ * Existing {@link ContainerData} delegates can be synced with
+ * {@link #addContainerData(ContainerData)}:
+ *
+ * <pre>
+ * {@code
+ * super(type, syncId, playerInventory);
+ * setPropertyDelegate(getPropertySync().addContainerData(delegate));
+ * }
+ * </pre>
+ *
+ * @see SyncedGuiDescription#getPropertySync()
+ */
+public final class PropertySync {
+    private static final ResourceLocation DELTA_MESSAGE = LibGuiCommon.id("property_delta");
+    private static final int DEFAULT_INTERVAL = 1;
+    private static final MessageCodec<Delta> DELTA_CODEC = MessageCodec.of(PropertySync::writeDelta,
+            PropertySync::readDelta);
+
+    private final SyncedGuiDescription description;
+    private final boolean server;
+    private LongSupplier[] suppliers = new LongSupplier[0];
+    private int[] intervals = new int[0];
+    /** On the server, the last sent values; on the client, the received values. */
+    private long[] values = new long[0];
+    private int[] nextUpdate = new int[0];
+    private int count = 0;
+    private int tick = 0;
+    private boolean resendAll = false;
+    private long sentFrames = 0;
+    private long sentValues = 0;
+
+    PropertySync(SyncedGuiDescription description) {
+        this.description = description;
+        this.server = description.getNetworkSide() == NetworkSide.SERVER;
+        ScreenNetworking.of(description, NetworkSide.CLIENT).receive(DELTA_MESSAGE, DELTA_CODEC, this::apply);
+    }
+
+    /**
+     * Adds an int property that is checked every tick.
+     *
+     * @param value the value supplier, read on the server
+     * @return the property index
+     */
+    public int addInt(IntSupplier value) {
+        return addInt(value, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Adds an int property.
+     *
+     * @param value    the value supplier, read on the server
+     * @param interval the number of ticks between checks for changes
+     * @return the property index
+     */
+    public int addInt(IntSupplier value, int interval) {
+        Objects.requireNonNull(value, "value");
+        return add(value::getAsInt, interval);
+    }
+
+    /**
+     * Adds a long property that is checked every tick.
+     *
+     * @param value the value supplier, read on the server
+     * @return the property index
+     */
+    public int addLong(LongSupplier value) {
+        return addLong(value, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * Adds a long property.
+     *
+     * @param value    the value supplier, read on the server
+     * @param interval the number of ticks between checks for changes
+     * @return the property index
+     */
+    public int addLong(LongSupplier value, int interval) {
+        Objects.requireNonNull(value, "value");
+        return add(value, interval);
+    }
+
+    /**
+     * Adds all properties of a container data delegate, and returns a delegate
+     * that reads the synced values. On the server, the returned delegate reads
+     * and writes the original delegate. On the client, it returns the received
+     * values; values set on the client are kept until the server sends new
+     * ones.
+     *
+     * @param data the original delegate
+     * @return the synced delegate
+     */
+    public ContainerData addContainerData(ContainerData data) {
+        Objects.requireNonNull(data, "data");
+        int first = count;
+        int size = data.getCount();
+        for (int i = 0; i < size; i++) {
+            int index = i;
+            add(() -> data.get(index), DEFAULT_INTERVAL);
+        }
+
+        return new ContainerData() {
+            @Override
+            public int get(int index) {
+                return server ? data.get(index) : getInt(first + index);
+            }
+
+            @Override
+            public void set(int index, int value) {
+                if (server) {
+                    data.set(index, value);
+                } else {
+                    values[first + index] = value;
+                }
+            }
+
+            @Override
+            public int getCount() {
+                return size;
+            }
+        };
+    }
+
+    private int add(LongSupplier supplier, int interval) {
+        if (interval < 1)
+            throw new IllegalArgumentException("Update interval must be positive: " + interval);
+
+        int index = count++;
+        if (index == suppliers.length) {
+            int capacity = Math.max(8, suppliers.length * 2);
+            suppliers = Arrays.copyOf(suppliers, capacity);
+            intervals = Arrays.copyOf(intervals, capacity);
+            values = Arrays.copyOf(values, capacity);
+            nextUpdate = Arrays.copyOf(nextUpdate, capacity);
+        }
+
+        suppliers[index] = supplier;
+        intervals[index] = interval;
+        // Both sides start from zero, so only non-zero values are sent initially
+        values[index] = 0;
+        nextUpdate[index] = tick;
+        return index;
+    }
+
+    /**
+     * Sets the update interval of a property.
+     *
+     * @param index    the property index
+     * @param interval the number of ticks between checks for changes
+     */
+    public void setUpdateInterval(int index, int interval) {
+        Objects.checkIndex(index, count);
+        if (interval < 1)
+            throw new IllegalArgumentException("Update interval must be positive: " + interval);
+        intervals[index] = interval;
+        nextUpdate[index] = Math.min(nextUpdate[index], tick + interval);
+    }
+
+    /**
+     * {@return the number of properties}
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the value of a property as a long.
+     *
+     * @param index the property index
+     * @return the current value on the server, or the last received value on the
+     *         client
+     */
+    public long getLong(int index) {
+        Objects.checkIndex(index, count);
+        return server ? suppliers[index].getAsLong() : values[index];
+    }
+
+    /**
+     * Gets the value of a property as an int.
+     *
+     * @param index the property index
+     * @return the current value on the server, or the last received value on the
+     *         client
+     */
+    public int getInt(int index) {
+        return (int) getLong(index);
+    }
+
+    /**
+     * {@return the number of delta frames sent by this sync}
+     */
+    public long getSentFrames() {
+        return sentFrames;
+    }
+
+    /**
+     * {@return the number of property values sent by this sync}
+     */
+    public long getSentValues() {
+        return sentValues;
+    }
+
+    /**
+     * Sends all properties with the next frame, whether they changed or not.
+     * Called on the server when the whole menu state is resent.
+     */
+    void resendAll() {
+        resendAll = true;
+    }
+
+    /**
+     * Sends the changed properties. Called once per tick on the server.
+     */
+    void tick() {
+        if (!server || count == 0)
+            return;
+
+        boolean all = resendAll;
+        resendAll = false;
+        long[] mask = null;
+        long[] changed = null;
+        int changedCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (!all && nextUpdate[i] > tick)
+                continue;
+
+            nextUpdate[i] = tick + intervals[i];
+            long value = suppliers[i].getAsLong();
+            if (all || value != values[i]) {
+                values[i] = value;
+                if (mask == null) {
+                    mask = new long[(count + 63) >>> 6];
+                    changed = new long[count];
+                }
+                mask[i >>> 6] |= 1L << i;
+                changed[changedCount++] = value;
+            }
+        }
+
+        tick++;
+        if (mask == null)
+            return;
+
+        sentFrames++;
+        sentValues += changedCount;
+        ScreenNetworking.of(description, NetworkSide.SERVER).send(DELTA_MESSAGE, DELTA_CODEC,
+                new Delta(mask, Arrays.copyOf(changed, changedCount)));
+    }
+
+    private void apply(Delta delta) {
+        int next = 0;
+        for (int word = 0; word < delta.mask().length; word++) {
+            long bits = delta.mask()[word];
+            while (bits != 0) {
+                int i = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                long value = delta.values()[next++];
+                if (i < count)
+                    values[i] = value;
+            }
+        }
+    }
+
+    private static void writeDelta(FriendlyByteBuf buf, Delta delta) {
+        buf.writeVarInt(delta.mask().length);
+        for (long word : delta.mask()) {
+            buf.writeVarLong(word);
+        }
+
+        for (long value : delta.values()) {
+            // Zigzag encoding keeps small negative values short
+            buf.writeVarLong((value << 1) ^ (value >> 63));
+        }
+    }
+
+    private static Delta readDelta(FriendlyByteBuf buf) {
+        int words = buf.readVarInt();
+        long[] mask = new long[words];
+        int changed = 0;
+        for (int word = 0; word < words; word++) {
+            mask[word] = buf.readVarLong();
+            changed += Long.bitCount(mask[word]);
+        }
+
+        long[] values = new long[changed];
+        for (int i = 0; i < changed; i++) {
+            long encoded = buf.readVarLong();
+            values[i] = (encoded >>> 1) ^ -(encoded & 1);
+        }
+
+        return new Delta(mask, values);
+    }
+
+    /**
+     * A set of changed properties.
+     *
+     * @param mask   a bitmask of the changed property indices
+     * @param values the new values, in index order
+     */
+    private record Delta(long[] mask, long[] values) {
+    }
+}
@@ -0,0 +1,110 @@
+package dev.tr7zw.trender.gui;
+
+import java.util.List;
+
+import dev.tr7zw.trender.gui.widget.data.ObservableProperty;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+
+/**
+ * Detects changes in the slots of a menu once per tick and reports them to the
+ * {@linkplain dev.tr7zw.trender.gui.widget.WItemSlot.ChangeListener change
+ * listeners} of the changed {@link ValidatedSlot}s.
+ *
+ * <p>
+ * The tracker keeps a compact snapshot of every slot (the stack instance, its
+ * item, count and damage) and compares it against the slot contents each tick.
+ * A slot counts as changed if its snapshot differs or if it was
+ * {@linkplain Slot#setChanged() marked as changed} during the tick. This also
+ * catches containers that are modified directly, for example by hoppers or
+ * pipes, without going through the slot.
+ *
+ * <p>
+ * Each changed slot is reported exactly once per tick, no matter how often it
+ * was written to. All reports of a tick are dispatched inside a single
+ * {@linkplain ObservableProperty#batch(Runnable) property batch}.
+ */
+final class SlotChangeTracker {
+    private final List<Slot> slots;
+    private final IntArrayList changedSlots = new IntArrayList();
+    private Object[] stacks = new Object[0];
+    private Item[] items = new Item[0];
+    private int[] counts = new int[0];
+    private int[] damages = new int[0];
+    private boolean valid = false;
+
+    SlotChangeTracker(List<Slot> slots) {
+        this.slots = slots;
+    }
+
+    /**
+     * Marks the slot structure as changed. The next tick takes a fresh snapshot
+     * and only reports slots that were explicitly marked as changed.
+     */
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Compares the slots against the previous snapshot and reports the changed
+     * ones.
+     */
+    void tick() {
+        int size = slots.size();
+        boolean compare = valid && stacks.length == size;
+        if (stacks.length != size) {
+            stacks = new Object[size];
+            items = new Item[size];
+            counts = new int[size];
+            damages = new int[size];
+        }
+
+        changedSlots.clear();
+        for (int i = 0; i < size; i++) {
+            Slot slot = slots.get(i);
+            ItemStack stack = slot.getItem();
+            boolean changed = slot instanceof ValidatedSlot validated && validated.consumeChanged();
+            changed |= compare && !matchesSnapshot(i, stack);
+            snapshot(i, stack);
+
+            if (changed && slot instanceof ValidatedSlot validated && validated.hasChangeListeners()) {
+                changedSlots.add(i);
+            }
+        }
+        valid = true;
+
+        if (!changedSlots.isEmpty()) {
+            ObservableProperty.batch(this::dispatch);
+        }
+    }
+
+    private void dispatch() {
+        for (int i = 0; i < changedSlots.size(); i++) {
+            ((ValidatedSlot) slots.get(changedSlots.getInt(i))).notifyChangeListeners();
+        }
+    }
+
+    private boolean matchesSnapshot(int index, ItemStack stack) {
+        if (stack.isEmpty())
+            return items[index] == null;
+
+        return stacks[index] == stack && items[index] == stack.getItem() && counts[index] == stack.getCount()
+                && damages[index] == stack.getDamageValue();
+    }
+
+    private void snapshot(int index, ItemStack stack) {
+        if (stack.isEmpty()) {
+            stacks[index] = null;
+            items[index] = null;
+            counts[index] = 0;
+            damages[index] = 0;
+        } else {
+            stacks[index] = stack;
+            items[index] = stack.getItem();
+            counts[index] = stack.getCount();
+            damages[index] = stack.getDamageValue();
+        }
+    }
+}
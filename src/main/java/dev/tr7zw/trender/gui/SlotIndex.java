@@ -0,0 +1,220 @@
+package dev.tr7zw.trender.gui;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+import net.minecraft.world.Container;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+
+/**
+ * An index of the slots of a menu, grouped by their container.
+ *
+ * <p>
+ * Each group knows which of its slots are empty and which slots hold a given
+ * item, so item transfers only visit slots that can actually accept the moved
+ * stack instead of scanning every slot of the menu.
+ *
+ * <p>
+ * The slot structure is indexed again when slots are added or removed. A
+ * {@link ValidatedSlot} refreshes its own entry whenever it's marked as
+ * changed, and callers {@linkplain #refresh(Slot) refresh} other slots they
+ * modify. Since containers can also be modified directly without going through
+ * the menu, all contents are indexed again after they were
+ * {@linkplain #invalidateContents() invalidated}, which the menu does whenever
+ * it broadcasts its changes.
+ */
+final class SlotIndex {
+    private final List<Slot> slots;
+    private final Map<Container, Group> groups = new IdentityHashMap<>();
+    private Group[] groupsBySlot = new Group[0];
+    private int[] positionsBySlot = new int[0];
+    private boolean structureValid = false;
+    private boolean contentsValid = false;
+
+    SlotIndex(List<Slot> slots) {
+        this.slots = slots;
+    }
+
+    /**
+     * Marks the slot structure as changed.
+     */
+    void invalidate() {
+        structureValid = false;
+    }
+
+    /**
+     * Marks the slot contents as changed, so they're indexed again on the next
+     * lookup.
+     */
+    void invalidateContents() {
+        contentsValid = false;
+    }
+
+    /**
+     * Gets the slot group of a container.
+     *
+     * @param container the container
+     * @return the group, or null if the menu has no slots for the container
+     */
+    @Nullable
+    Group getGroup(Container container) {
+        if (!structureValid || groupsBySlot.length != slots.size()) {
+            rebuildStructure();
+            contentsValid = false;
+        }
+
+        if (!contentsValid) {
+            for (Group group : groups.values()) {
+                group.reindexContents();
+            }
+            contentsValid = true;
+        }
+
+        return groups.get(container);
+    }
+
+    /**
+     * {@return the position of a slot in its group, or -1 if the slot isn't
+     * indexed} Only valid after {@link #getGroup} has been called.
+     *
+     * @param group the group of the slot
+     * @param index the {@linkplain Slot#index menu index} of the slot
+     */
+    int getPosition(Group group, int index) {
+        if (index < 0 || index >= groupsBySlot.length || groupsBySlot[index] != group)
+            return -1;
+        return positionsBySlot[index];
+    }
+
+    /**
+     * Updates the indexed contents of a slot after it was modified.
+     *
+     * @param slot the modified slot
+     */
+    void refresh(Slot slot) {
+        int index = slot.index;
+        // Stale contents are indexed again on the next lookup anyway
+        if (!structureValid || !contentsValid || index < 0 || index >= groupsBySlot.length)
+            return;
+
+        Group group = groupsBySlot[index];
+        if (group != null && group.slots[positionsBySlot[index]] == slot) {
+            group.reindex(positionsBySlot[index]);
+        }
+    }
+
+    private void rebuildStructure() {
+        groups.clear();
+        Map<Container, Integer> sizes = new IdentityHashMap<>();
+        for (Slot slot : slots) {
+            sizes.merge(slot.container, 1, Integer::sum);
+        }
+
+        for (Map.Entry<Container, Integer> entry : sizes.entrySet()) {
+            groups.put(entry.getKey(), new Group(entry.getValue()));
+        }
+
+        groupsBySlot = new Group[slots.size()];
+        positionsBySlot = new int[slots.size()];
+        for (int i = 0; i < slots.size(); i++) {
+            Slot slot = slots.get(i);
+            Group group = groups.get(slot.container);
+            int position = group.size++;
+            group.slots[position] = slot;
+            groupsBySlot[i] = group;
+            positionsBySlot[i] = position;
+
+            if (slot instanceof ValidatedSlot validated) {
+                if (Inventory.isHotbarSlot(validated.getInventoryIndex())) {
+                    group.hotbar.set(position);
+                } else {
+                    group.storage.set(position);
+                }
+            }
+        }
+
+        structureValid = true;
+    }
+
+    /**
+     * The slots of a single container, in menu order. Slots are referred to by
+     * their position in the group.
+     */
+    static final class Group {
+        final Slot[] slots;
+        /** The item in each slot, or null if the slot is empty. */
+        private final Item[] items;
+        private final BitSet empty = new BitSet();
+        private final Map<Item, BitSet> slotsByItem = new HashMap<>();
+        /** The {@link ValidatedSlot}s that are hotbar slots of their container. */
+        final BitSet hotbar = new BitSet();
+        /** The {@link ValidatedSlot}s that aren't hotbar slots of their container. */
+        final BitSet storage = new BitSet();
+        private int size = 0;
+
+        private Group(int size) {
+            this.slots = new Slot[size];
+            this.items = new Item[size];
+        }
+
+        /**
+         * {@return the positions of the empty slots} The returned set must not be
+         * modified.
+         */
+        BitSet getEmptySlots() {
+            return empty;
+        }
+
+        /**
+         * {@return the positions of the slots holding the item, or null if there are
+         * none} The returned set must not be modified.
+         *
+         * @param item the item
+         */
+        @Nullable
+        BitSet getSlotsWith(Item item) {
+            BitSet result = slotsByItem.get(item);
+            return result != null && !result.isEmpty() ? result : null;
+        }
+
+        private void reindexContents() {
+            empty.clear();
+            slotsByItem.clear();
+            for (int i = 0; i < size; i++) {
+                items[i] = null;
+                index(i);
+            }
+        }
+
+        void reindex(int position) {
+            Item previous = items[position];
+            if (previous == null) {
+                empty.clear(position);
+            } else {
+                slotsByItem.get(previous).clear(position);
+            }
+
+            index(position);
+        }
+
+        private void index(int position) {
+            ItemStack stack = slots[position].getItem();
+            if (stack.isEmpty()) {
+                items[position] = null;
+                empty.set(position);
+            } else {
+                Item item = stack.getItem();
+                items[position] = item;
+                slotsByItem.computeIfAbsent(item, k -> new BitSet()).set(position);
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package dev.tr7zw.trender.gui;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+import org.jetbrains.annotations.Nullable;
+
+import dev.tr7zw.trender.gui.networking.NetworkSide;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import net.minecraft.world.inventory.Slot;
+import net.minecraft.world.item.ItemStack;
+
+/**
+ * Tracks the client-side predictions of slot clicks and reconciles them with
+ * the state sent by the server.
+ *
+ * <p>
+ * Slot clicks (picking up, placing, quick moving and swapping) are applied on
+ * the client right away with the same menu logic as on the server, including
+ * {@link SyncedGuiDescription#quickMoveStack quickMoveStack} and the slot
+ * filters, and the server only sends slots back when its result differs. When
+ * tracking is {@linkplain #setEnabled(boolean) enabled}, the slots changed by
+ * each click are remembered until the server either corrects one of them,
+ * which rolls the click back to the authoritative state and counts as a
+ * misprediction, or until the confirmation window passes without a
+ * correction.
+ *
+ * <p>
+ * Tracking is disabled by default. Any server update to a predicted slot that
+ * differs from the prediction counts as a misprediction, so slots that also
+ * change on their own, like machine outputs, can inflate the count.
+ *
+ * @see SyncedGuiDescription#getSlotPrediction()
+ */
+public final class SlotPrediction {
+    private static final int DEFAULT_CONFIRM_TICKS = 40;
+
+    private final SyncedGuiDescription description;
+    private final Int2ObjectMap<PendingSlot> pendingSlots = new Int2ObjectOpenHashMap<>();
+    private final Deque<Click> pendingClicks = new ArrayDeque<>();
+    private boolean enabled = false;
+    private int confirmTicks = DEFAULT_CONFIRM_TICKS;
+    private int tick = 0;
+    private int clickDepth = 0;
+    //#if MC >= 11800
+    private ItemStack carriedSnapshot = ItemStack.EMPTY;
+    @Nullable
+    private PendingSlot pendingCarried = null;
+    //#endif
+    private long predictedClicks = 0;
+    private long confirmedClicks = 0;
+    private long mispredictedClicks = 0;
+    private long correctedSlots = 0;
+
+    SlotPrediction(SyncedGuiDescription description) {
+        this.description = description;
+    }
+
+    /**
+     * {@return whether predictions are tracked}
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether predictions are tracked. Disabling tracking drops all pending
+     * predictions.
+     *
+     * @param enabled true to track predictions
+     * @return this prediction tracker
+     */
+    public SlotPrediction setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled)
+            clear();
+        return this;
+    }
+
+    /**
+     * {@return the number of ticks after which a prediction without a correction
+     * is confirmed}
+     */
+    public int getConfirmTicks() {
+        return confirmTicks;
+    }
+
+    /**
+     * Sets the number of ticks after which a prediction without a correction is
+     * confirmed. This should be larger than the round-trip time to the server.
+     *
+     * @param confirmTicks the confirmation window in ticks
+     * @return this prediction tracker
+     */
+    public SlotPrediction setConfirmTicks(int confirmTicks) {
+        if (confirmTicks < 1)
+            throw new IllegalArgumentException("Confirmation window must be positive: " + confirmTicks);
+        this.confirmTicks = confirmTicks;
+        return this;
+    }
+
+    /**
+     * Runs a slot click that is applied locally and sent to the server, such as a
+     * call to {@code MultiPlayerGameMode.handleInventoryMouseClick}, and tracks
+     * the slots it changes.
+     *
+     * @param click the click
+     */
+    public void predict(Runnable click) {
+        Objects.requireNonNull(click, "click");
+        if (!isTracking() || clickDepth > 0) {
+            click.run();
+            return;
+        }
+
+        List<Slot> slots = description.slots;
+        List<ItemStack> before = new ArrayList<>(slots.size());
+        for (Slot slot : slots) {
+            before.add(slot.getItem().copy());
+        }
+        //#if MC >= 11800
+        carriedSnapshot = description.getCarried().copy();
+        //#endif
+
+        clickDepth++;
+        try {
+            click.run();
+        } finally {
+            clickDepth--;
+        }
+
+        Click predicted = new Click(tick + confirmTicks);
+        boolean changed = false;
+        for (int i = 0; i < slots.size() && i < before.size(); i++) {
+            ItemStack after = slots.get(i).getItem();
+            if (!ItemStack.matches(before.get(i), after)) {
+                pendingSlots.put(i, new PendingSlot(after.copy(), predicted));
+                changed = true;
+            }
+        }
+        //#if MC >= 11800
+        ItemStack carried = description.getCarried();
+        if (!ItemStack.matches(carriedSnapshot, carried)) {
+            pendingCarried = new PendingSlot(carried.copy(), predicted);
+            changed = true;
+        }
+        carriedSnapshot = ItemStack.EMPTY;
+        //#endif
+
+        if (changed) {
+            predictedClicks++;
+            pendingClicks.add(predicted);
+        }
+    }
+
+    private boolean isTracking() {
+        return enabled && description.getNetworkSide() == NetworkSide.CLIENT;
+    }
+
+    /**
+     * Confirms the predictions whose confirmation window has passed. Called once
+     * per client tick.
+     */
+    public void tick() {
+        tick++;
+        while (!pendingClicks.isEmpty() && pendingClicks.peekFirst().expiry <= tick) {
+            Click click = pendingClicks.pollFirst();
+            if (!click.resolved) {
+                click.resolved = true;
+                confirmedClicks++;
+            }
+        }
+
+        if (pendingClicks.isEmpty() && !pendingSlots.isEmpty()) {
+            pendingSlots.clear();
+        }
+        //#if MC >= 11800
+        if (pendingClicks.isEmpty())
+            pendingCarried = null;
+        //#endif
+    }
+
+    void onServerSlot(int index, ItemStack stack) {
+        if (clickDepth > 0 || pendingSlots.isEmpty())
+            return;
+
+        PendingSlot pending = pendingSlots.remove(index);
+        if (pending != null)
+            reconcile(pending, stack);
+    }
+
+    void onServerContents(List<ItemStack> stacks) {
+        if (clickDepth > 0 || pendingSlots.isEmpty())
+            return;
+
+        for (int i = 0; i < stacks.size(); i++) {
+            onServerSlot(i, stacks.get(i));
+        }
+    }
+
+    //#if MC >= 11800
+    void onServerCarried(ItemStack stack) {
+        if (clickDepth > 0 || pendingCarried == null)
+            return;
+
+        PendingSlot pending = pendingCarried;
+        pendingCarried = null;
+        reconcile(pending, stack);
+    }
+    //#endif
+
+    private void reconcile(PendingSlot pending, ItemStack authoritative) {
+        Click click = pending.click;
+        if (ItemStack.matches(pending.stack, authoritative))
+            return;
+
+        // The server's state replaces the prediction, rolling the click back
+        correctedSlots++;
+        if (!click.resolved) {
+            click.resolved = true;
+            mispredictedClicks++;
+        }
+    }
+
+    private void clear() {
+        pendingSlots.clear();
+        pendingClicks.clear();
+        //#if MC >= 11800
+        pendingCarried = null;
+        //#endif
+    }
+
+    /**
+     * {@return the number of clicks that changed slots locally while tracking}
+     */
+    public long getPredictedClicks() {
+        return predictedClicks;
+    }
+
+    /**
+     * {@return the number of predicted clicks that the server didn't correct}
+     */
+    public long getConfirmedClicks() {
+        return confirmedClicks;
+    }
+
+    /**
+     * {@return the number of predicted clicks that the server corrected}
+     */
+    public long getMispredictedClicks() {
+        return mispredictedClicks;
+    }
+
+    /**
+     * {@return the number of predicted slots that the server corrected}
+     */
+    public long getCorrectedSlots() {
+        return correctedSlots;
+    }
+
+    /**
+     * {@return the number of predicted clicks waiting for confirmation}
+     */
+    public int getPendingClicks() {
+        int count = 0;
+        for (Click click : pendingClicks) {
+            if (!click.resolved)
+                count++;
+        }
+        return count;
+    }
+
+    private static final class Click {
+        final int expiry;
+        boolean resolved = false;
+
+        Click(int expiry) {
+            this.expiry = expiry;
+        }
+    }
+
+    private record PendingSlot(ItemStack stack, Click click) {
+    }
+}
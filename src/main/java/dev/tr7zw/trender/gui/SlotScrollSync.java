@@ -0,0 +1,151 @@
+package dev.tr7zw.trender.gui;
+
+import java.util.function.IntUnaryOperator;
+
+//#if MC < 12005
+//$$ import dev.tr7zw.trender.gui.impl.LibGuiCommon;
+//$$ import dev.tr7zw.trender.gui.impl.ScreenNetworkingImpl;
+//$$ import dev.tr7zw.trender.gui.networking.MessageCodec;
+//$$ import dev.tr7zw.trender.gui.networking.ScreenNetworking;
+//$$ import net.minecraft.network.FriendlyByteBuf;
+//$$ import net.minecraft.resources.ResourceLocation;
+//#else
+import net.minecraft.client.Minecraft;
+//#endif
+import dev.tr7zw.trender.gui.networking.NetworkSide;
+import net.minecraft.world.inventory.DataSlot;
+
+/**
+ * Synchronizes the scroll offset of a scrollable slot window between the client
+ * and the server.
+ *
+ * <p>
+ * The offset is measured in rows. The server owns the offset and sends it to
+ * the client as a {@link DataSlot}. The client scrolls immediately, so the slot
+ * contents that the server sends for the new rows are put in the right place,
+ * and asks the server to follow with a menu button click. Before 1.20.5,
+ * button IDs are sent as bytes, so the request is sent as a screen message
+ * instead. The client follows any different offset that the server reports.
+ *
+ * <p>
+ * Instances are created with
+ * {@link SyncedGuiDescription#addSlotScrollSync(IntUnaryOperator)} in the same
+ * order on both sides.
+ *
+ * @see dev.tr7zw.trender.gui.widget.WVirtualItemSlot
+ */
+public final class SlotScrollSync {
+    /** The largest row that can be synced; data slots are sent as shorts. */
+    public static final int MAX_ROW = 0xFFFF;
+    static final int BUTTON_FLAG = 0x8000_0000;
+    static final int MAX_ID = 0x7F;
+    private static final int ID_SHIFT = 24;
+    private static final int ROW_MASK = 0xFF_FFFF;
+    //#if MC < 12005
+    //$$ private static final MessageCodec<Integer> ROW_CODEC = MessageCodec.of(FriendlyByteBuf::writeVarInt,
+    //$$         FriendlyByteBuf::readVarInt);
+    //#endif
+
+    private final SyncedGuiDescription description;
+    private final int id;
+    private final DataSlot syncedRow = DataSlot.standalone();
+    private final IntUnaryOperator scroller;
+    private int row = 0;
+    //#if MC < 12005
+    //$$ private final ResourceLocation message;
+    //#endif
+
+    SlotScrollSync(SyncedGuiDescription description, int id, IntUnaryOperator scroller) {
+        this.description = description;
+        this.id = id;
+        this.scroller = scroller;
+        //#if MC < 12005
+        //$$ this.message = LibGuiCommon.id("slot_scroll/" + id);
+        //$$ ScreenNetworking.of(description, NetworkSide.SERVER).receive(message, ROW_CODEC, this::handleRequest);
+        //#endif
+    }
+
+    DataSlot getDataSlot() {
+        return syncedRow;
+    }
+
+    /**
+     * {@return the current row offset on this side}
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Scrolls to a row. On the client, the server is asked to scroll as well.
+     *
+     * @param row the new row offset, clamped to [0, {@value #MAX_ROW}]
+     */
+    public void scrollTo(int row) {
+        row = Math.max(0, Math.min(row, MAX_ROW));
+        if (row == this.row || !apply(row))
+            return;
+
+        if (description.getNetworkSide() == NetworkSide.CLIENT) {
+            //#if MC >= 12005
+            Minecraft client = Minecraft.getInstance();
+            client.gameMode.handleInventoryButtonClick(description.containerId, toButtonId(id, this.row));
+            //#else
+            //$$ ScreenNetworking.of(description, NetworkSide.CLIENT).send(message, ROW_CODEC, this.row);
+            //$$ // Sent right away, so slot clicks later in this tick arrive after it
+            //$$ ScreenNetworkingImpl.flush(description);
+            //#endif
+        }
+    }
+
+    /**
+     * Follows the offset reported by the server. Called every client tick by the
+     * owner of this sync.
+     */
+    public void update() {
+        int synced = syncedRow.get() & MAX_ROW;
+        if (synced != row) {
+            apply(synced);
+        }
+    }
+
+    /**
+     * Scrolls the owner, which may clamp the row. On the server, the slots are
+     * resent if the row changed, since the peers now show other inventory slots.
+     *
+     * @return true if the row changed
+     */
+    private boolean apply(int row) {
+        int previous = this.row;
+        this.row = scroller.applyAsInt(row);
+        syncedRow.set(this.row);
+        if (previous == this.row)
+            return false;
+
+        description.resendSlots();
+        return true;
+    }
+
+    static int toButtonId(int id, int row) {
+        return BUTTON_FLAG | (id << ID_SHIFT) | (row & ROW_MASK);
+    }
+
+    static boolean isButtonId(int buttonId) {
+        return (buttonId & BUTTON_FLAG) != 0;
+    }
+
+    static int getId(int buttonId) {
+        return (buttonId >>> ID_SHIFT) & MAX_ID;
+    }
+
+    static int getRow(int buttonId) {
+        return Math.min(buttonId & ROW_MASK, MAX_ROW);
+    }
+
+    /**
+     * Handles a scroll request from the client.
+     */
+    void handleRequest(int row) {
+        apply(row);
+    }
+}
@@ -1,13 +1,20 @@
 package dev.tr7zw.trender.gui;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import org.jetbrains.annotations.Nullable;
 
 import dev.tr7zw.transition.mc.ItemUtil;
 import dev.tr7zw.trender.gui.client.BackgroundPainter;
+import dev.tr7zw.trender.gui.impl.ScreenNetworkingImpl;
+import dev.tr7zw.trender.gui.impl.jfr.QuickMoveEvent;
 import dev.tr7zw.trender.gui.networking.NetworkSide;
 import dev.tr7zw.trender.gui.widget.WGridPanel;
 import dev.tr7zw.trender.gui.widget.WPanel;
@@ -16,6 +23,7 @@ import dev.tr7zw.trender.gui.widget.WWidget;
 import dev.tr7zw.trender.gui.widget.data.HorizontalAlignment;
 import dev.tr7zw.trender.gui.widget.data.Insets;
 import dev.tr7zw.trender.gui.widget.data.Vec2i;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import net.minecraft.client.Minecraft;
 import net.minecraft.network.protocol.Packet;
 import net.minecraft.server.level.ServerLevel;
@@ -54,6 +62,15 @@ public class SyncedGuiDescription extends AbstractContainerMenu implements GuiDe
     protected HorizontalAlignment titleAlignment = HorizontalAlignment.LEFT;
 
     protected WWidget focus;
+    private final SlotIndex slotIndex = new SlotIndex(slots);
+    private final SlotChangeTracker slotChangeTracker = new SlotChangeTracker(slots);
+    private final List<SlotScrollSync> slotScrollSyncs = new ArrayList<>();
+    @Nullable
+    private PropertySync propertySync = null;
+    private final SlotPrediction slotPrediction = new SlotPrediction(this);
+    private boolean keepingSlotPeers = false;
+    private boolean slotPeersChanged = false;
+    private int keptSlotPeers = 0;
     private Vec2i titlePos = new Vec2i(8, 6);
     private boolean useDefaultRootBackground = true;
 
@@ -146,8 +163,231 @@ public class SyncedGuiDescription extends AbstractContainerMenu implements GuiDe
         this.addSlot(slot);
     }
 
+    @Override
+    protected Slot addSlot(Slot slot) {
+        slotIndex.invalidate();
+        slotChangeTracker.invalidate();
+        if (slot instanceof ValidatedSlot validated) {
+            validated.setChangeTracked(true);
+            validated.setSlotIndex(slotIndex);
+        }
+        if (keepingSlotPeers)
+            slotPeersChanged = true;
+        return super.addSlot(slot);
+    }
+
+    @Override
+    public void broadcastChanges() {
+        super.broadcastChanges();
+        // Containers may have been changed directly, without going through the slots
+        slotIndex.invalidateContents();
+        dispatchSlotChanges();
+        if (propertySync != null)
+            propertySync.tick();
+        ScreenNetworkingImpl.flush(this);
+    }
+
+    //#if MC >= 11700
+    @Override
+    public void sendAllDataToRemote() {
+        super.sendAllDataToRemote();
+        if (propertySync != null)
+            propertySync.resendAll();
+    }
+    //#endif
+
+    /**
+     * Sends the contents of all slots to the client on the server, even if they
+     * didn't change. Vanilla only compares slots by their menu index, so after
+     * slot peers are rebound to other inventory slots, the client's copy of the
+     * newly shown inventory slots could otherwise stay stale.
+     */
+    void resendSlots() {
+        if (getNetworkSide() != NetworkSide.SERVER)
+            return;
+
+        //#if MC >= 11700
+        sendAllDataToRemote();
+        //#else
+        //$$ ((ServerPlayer) playerInventory.player).refreshContainer(this, getItems());
+        //#endif
+    }
+
+    /**
+     * Gets the tracker for client-side slot click predictions of this GUI
+     * description.
+     *
+     * @return the slot prediction tracker
+     */
+    public SlotPrediction getSlotPrediction() {
+        return slotPrediction;
+    }
+
+    //#if MC >= 11800
+    @Override
+    public void setItem(int slot, int stateId, ItemStack stack) {
+        slotPrediction.onServerSlot(slot, stack);
+        super.setItem(slot, stateId, stack);
+        slotIndex.refresh(getSlot(slot));
+    }
+
+    @Override
+    public void initializeContents(int stateId, List<ItemStack> stacks, ItemStack carried) {
+        slotPrediction.onServerContents(stacks);
+        slotPrediction.onServerCarried(carried);
+        super.initializeContents(stateId, stacks, carried);
+        slotIndex.invalidateContents();
+    }
+
+    @Override
+    public void setCarried(ItemStack stack) {
+        slotPrediction.onServerCarried(stack);
+        super.setCarried(stack);
+    }
+    //#else
+    //$$ @Override
+    //$$ public void setItem(int slot, ItemStack stack) {
+    //$$     slotPrediction.onServerSlot(slot, stack);
+    //$$     super.setItem(slot, stack);
+    //$$     slotIndex.refresh(getSlot(slot));
+    //$$ }
+    //$$
+    //$$ @Override
+    //$$ public void setAll(List<ItemStack> stacks) {
+    //$$     slotPrediction.onServerContents(stacks);
+    //$$     super.setAll(stacks);
+    //$$     slotIndex.invalidateContents();
+    //$$ }
+    //#endif
+
+    /**
+     * Gets the property sync of this GUI description, creating it if needed.
+     *
+     * <p>
+     * The property sync sends full-width int and long properties to the client in
+     * one delta message per tick, instead of the per-property, 16-bit packets
+     * used for {@linkplain #addDataSlots(ContainerData) container data}.
+     * Properties must be added in the same order on both sides.
+     *
+     * @return the property sync
+     */
+    public PropertySync getPropertySync() {
+        if (propertySync == null)
+            propertySync = new PropertySync(this);
+        return propertySync;
+    }
+
+    /**
+     * Reports the slots that changed since the last call to their
+     * {@linkplain dev.tr7zw.trender.gui.widget.WItemSlot.ChangeListener change
+     * listeners}, once per changed slot.
+     *
+     * <p>
+     * This is called every tick: on the server when the menu broadcasts its
+     * changes, and on the client by
+     * {@link dev.tr7zw.trender.gui.client.CottonInventoryScreen
+     * CottonInventoryScreen}.
+     */
+    public void dispatchSlotChanges() {
+        slotChangeTracker.tick();
+    }
+
+    @Override
+    public boolean keepSlotPeer(ValidatedSlot slot) {
+        if (keepingSlotPeers && slot.index >= 0 && slot.index < slots.size() && slots.get(slot.index) == slot) {
+            keptSlotPeers++;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Validates the root panel while keeping the existing slot peers, so that
+     * repositioning the GUI doesn't recreate every slot. If the slot widgets don't
+     * match the existing peers anymore, all peers are recreated from scratch to
+     * keep the slot indices consistent with the other side.
+     */
+    public void revalidateKeepingSlotPeers() {
+        WPanel root = getRootPanel();
+        if (root == null)
+            return;
+
+        keepingSlotPeers = true;
+        keptSlotPeers = 0;
+        slotPeersChanged = false;
+        try {
+            root.validate(this);
+        } finally {
+            keepingSlotPeers = false;
+        }
+
+        if (slotPeersChanged || keptSlotPeers != slots.size()) {
+            slots.clear();
+            root.validate(this);
+        }
+    }
+
+    /**
+     * Adds a synced scroll offset for a scrollable slot window, such as a
+     * {@link dev.tr7zw.trender.gui.widget.WVirtualItemSlot WVirtualItemSlot}.
+     *
+     * <p>
+     * The scroller moves the window's slot peers to the requested row and returns
+     * the row it actually scrolled to. It's called on the server when the client
+     * scrolls, and on the client when the server reports a different offset. The
+     * syncs must be added in the same order on both sides.
+     *
+     * @param scroller the scroller of the window
+     * @return the created sync
+     * @throws IllegalStateException if too many syncs have been added
+     */
+    public SlotScrollSync addSlotScrollSync(IntUnaryOperator scroller) {
+        Objects.requireNonNull(scroller, "scroller");
+        if (slotScrollSyncs.size() > SlotScrollSync.MAX_ID)
+            throw new IllegalStateException("Too many scrollable slot windows in " + this);
+
+        SlotScrollSync sync = new SlotScrollSync(this, slotScrollSyncs.size(), row -> {
+            int scrolled = scroller.applyAsInt(row);
+            // The peers now show other inventory slots
+            slotIndex.invalidate();
+            return scrolled;
+        });
+        slotScrollSyncs.add(sync);
+        addDataSlot(sync.getDataSlot());
+        return sync;
+    }
+
+    @Override
+    public boolean clickMenuButton(Player player, int id) {
+        if (SlotScrollSync.isButtonId(id)) {
+            int syncId = SlotScrollSync.getId(id);
+            if (syncId >= slotScrollSyncs.size())
+                return false;
+
+            slotScrollSyncs.get(syncId).handleRequest(SlotScrollSync.getRow(id));
+            return true;
+        }
+
+        return super.clickMenuButton(player, id);
+    }
+
     @Override
     public ItemStack quickMoveStack(Player player, int index) {
+        QuickMoveEvent event = new QuickMoveEvent();
+        event.begin();
+        ItemStack result = moveStack(player, index);
+        event.end();
+        if (event.shouldCommit()) {
+            event.descriptionClass = getClass().getName();
+            event.slot = index;
+            event.moved = !result.isEmpty();
+            event.commit();
+        }
+        return result;
+    }
+
+    private ItemStack moveStack(Player player, int index) {
         ItemStack result = ItemStack.EMPTY;
         Slot slot = slots.get(index);
 
@@ -180,6 +420,7 @@ public class SyncedGuiDescription extends AbstractContainerMenu implements GuiDe
             } else {
                 slot.setChanged();
             }
+            slotIndex.refresh(slot);
         }
 
         return result;
@@ -232,122 +473,262 @@ public class SyncedGuiDescription extends AbstractContainerMenu implements GuiDe
     }
 
     private boolean insertItem(ItemStack toInsert, Container inventory, boolean walkBackwards, Player player) {
-        //Make a unified list of slots *only from this inventory*
-        ArrayList<Slot> inventorySlots = new ArrayList<>();
-        for (Slot slot : slots) {
-            if (slot.container == inventory)
-                inventorySlots.add(slot);
-        }
-        if (inventorySlots.isEmpty())
+        //Only look at the slots *from this inventory*
+        SlotIndex.Group group = slotIndex.getGroup(inventory);
+        if (group == null)
             return false;
 
-        //Try to insert it on top of existing stacks
+        return insertIntoGroup(toInsert, group, null, walkBackwards, player);
+    }
+
+    private boolean swapHotbar(ItemStack toInsert, int slotNumber, Container inventory, Player player) {
+        //Feel out the slots to see what's storage versus hotbar
+        SlotIndex.Group group = slotIndex.getGroup(inventory);
+        if (group == null || group.storage.isEmpty() || group.hotbar.isEmpty())
+            return false;
+
+        int position = slotIndex.getPosition(group, slotNumber);
+        boolean swapToStorage = position < 0 || !group.storage.get(position);
+
+        //swap from hotbar to storage, or from storage to hotbar
+        return insertIntoGroup(toInsert, group, swapToStorage ? group.storage : group.hotbar, false, player);
+    }
+
+    /**
+     * Inserts a stack into a slot group, first on top of existing stacks and then
+     * into empty slots. Only the slots that can accept the stack are visited, in
+     * the same order as a linear walk over the group would visit them.
+     *
+     * <p>
+     * WILL MODIFY toInsert! Returns true if anything was inserted.
+     */
+    private boolean insertIntoGroup(ItemStack toInsert, SlotIndex.Group group, @Nullable BitSet allowed,
+            boolean walkBackwards, Player player) {
         boolean inserted = false;
-        if (walkBackwards) {
-            for (int i = inventorySlots.size() - 1; i >= 0; i--) {
-                Slot curSlot = inventorySlots.get(i);
-                if (insertIntoExisting(toInsert, curSlot, player))
-                    inserted = true;
-                if (toInsert.isEmpty())
-                    break;
-            }
-        } else {
-            for (int i = 0; i < inventorySlots.size(); i++) {
-                Slot curSlot = inventorySlots.get(i);
-                if (insertIntoExisting(toInsert, curSlot, player))
+
+        //Try to insert it on top of existing stacks
+        BitSet existing = group.getSlotsWith(toInsert.getItem());
+        if (existing != null) {
+            for (int i = firstPosition(existing, walkBackwards); i >= 0; i = nextPosition(existing, i,
+                    walkBackwards)) {
+                if (allowed != null && !allowed.get(i))
+                    continue;
+                if (insertIntoExisting(toInsert, group.slots[i], player))
                     inserted = true;
                 if (toInsert.isEmpty())
                     break;
             }
-
         }
 
         //If we still have any, shove them into empty slots
         if (!toInsert.isEmpty()) {
-            if (walkBackwards) {
-                for (int i = inventorySlots.size() - 1; i >= 0; i--) {
-                    Slot curSlot = inventorySlots.get(i);
-                    if (insertIntoEmpty(toInsert, curSlot))
-                        inserted = true;
-                    if (toInsert.isEmpty())
-                        break;
-                }
-            } else {
-                for (int i = 0; i < inventorySlots.size(); i++) {
-                    Slot curSlot = inventorySlots.get(i);
-                    if (insertIntoEmpty(toInsert, curSlot))
-                        inserted = true;
-                    if (toInsert.isEmpty())
-                        break;
+            BitSet empty = group.getEmptySlots();
+            for (int i = firstPosition(empty, walkBackwards); i >= 0; i = nextPosition(empty, i, walkBackwards)) {
+                if (allowed != null && !allowed.get(i))
+                    continue;
+                if (insertIntoEmpty(toInsert, group.slots[i])) {
+                    inserted = true;
+                    // The slot is no longer empty, which is fine to change while walking
+                    group.reindex(i);
                 }
-
+                if (toInsert.isEmpty())
+                    break;
             }
         }
 
         return inserted;
     }
 
-    private boolean swapHotbar(ItemStack toInsert, int slotNumber, Container inventory, Player player) {
-        //Feel out the slots to see what's storage versus hotbar
-        ArrayList<Slot> storageSlots = new ArrayList<>();
-        ArrayList<Slot> hotbarSlots = new ArrayList<>();
-        boolean swapToStorage = true;
-        boolean inserted = false;
+    private static int firstPosition(BitSet positions, boolean walkBackwards) {
+        return walkBackwards ? positions.length() - 1 : positions.nextSetBit(0);
+    }
 
-        for (Slot slot : slots) {
-            if (slot.container == inventory && slot instanceof ValidatedSlot validated) {
-                int index = validated.getInventoryIndex();
-                if (Inventory.isHotbarSlot(index)) {
-                    hotbarSlots.add(slot);
-                } else {
-                    storageSlots.add(slot);
-                    if (slot.index == slotNumber)
-                        swapToStorage = false;
-                }
+    private static int nextPosition(BitSet positions, int current, boolean walkBackwards) {
+        return walkBackwards ? positions.previousSetBit(current - 1) : positions.nextSetBit(current + 1);
+    }
+
+    /**
+     * Moves all matching items from one inventory to another.
+     *
+     * <p>
+     * Unlike repeated {@linkplain #quickMoveStack(Player, int) quick moves}, all
+     * moves are planned in a single pass over the source slots and then applied
+     * together. Items are first put on top of existing stacks and then into empty
+     * slots of the target inventory, respecting the slot filters on both sides.
+     * Each touched {@link ValidatedSlot} notifies its change listeners once, and
+     * each inventory is {@linkplain Container#setChanged() marked as changed}
+     * once.
+     *
+     * <p>
+     * This method should be called on the logical server; the results are synced
+     * to the client like any other menu change.
+     *
+     * @param player the player moving the items
+     * @param filter the filter for the moved stacks
+     * @param source the inventory to take items from
+     * @param target the inventory to put items into
+     * @return a summary of the transfer
+     */
+    public BulkTransferResult moveAllMatching(Player player, Predicate<ItemStack> filter, Container source,
+            Container target) {
+        Objects.requireNonNull(filter, "filter");
+        SlotIndex.Group from = slotIndex.getGroup(source);
+        SlotIndex.Group to = slotIndex.getGroup(target);
+        if (from == null || to == null || from == to)
+            return BulkTransferResult.NONE;
+
+        IntArrayList moves = planMoves(player, filter, from, to);
+        if (moves.isEmpty())
+            return BulkTransferResult.NONE;
+
+        return applyMoves(moves, from, to, source, target);
+    }
+
+    /**
+     * Plans the moves of a bulk transfer without modifying any slots. Moves are
+     * stored as (source position, target position, count) triples.
+     */
+    private IntArrayList planMoves(Player player, Predicate<ItemStack> filter, SlotIndex.Group from,
+            SlotIndex.Group to) {
+        IntArrayList moves = new IntArrayList();
+        int targetCount = to.slots.length;
+        // The simulated target contents, for the slots that have been planned into
+        int[] plannedCounts = new int[targetCount];
+        ItemStack[] plannedStacks = new ItemStack[targetCount];
+        BitSet filledEmptySlots = new BitSet();
+
+        for (int s = 0; s < from.slots.length; s++) {
+            Slot fromSlot = from.slots[s];
+            ItemStack stack = fromSlot.getItem();
+            if (stack.isEmpty() || !filter.test(stack) || !fromSlot.mayPickup(player))
+                continue;
+
+            int remaining = stack.getCount();
+
+            //Try to put it on top of existing stacks, including ones planned earlier
+            BitSet existing = (BitSet) filledEmptySlots.clone();
+            BitSet withItem = to.getSlotsWith(stack.getItem());
+            if (withItem != null)
+                existing.or(withItem);
+
+            for (int t = existing.nextSetBit(0); t >= 0 && remaining > 0; t = existing.nextSetBit(t + 1)) {
+                Slot toSlot = to.slots[t];
+                ItemStack current = plannedStacks[t] != null ? plannedStacks[t] : toSlot.getItem();
+                if (current.isEmpty() || !ItemUtil.isSame(stack, current) || !toSlot.mayPlace(stack))
+                    continue;
+
+                int count = plannedStacks[t] != null ? plannedCounts[t] : current.getCount();
+                int maxAmount = Math.min(stack.getMaxStackSize(), toSlot.getMaxStackSize(stack));
+                int moved = Math.min(maxAmount - count, remaining);
+                if (moved <= 0)
+                    continue;
+
+                moves.add(s);
+                moves.add(t);
+                moves.add(moved);
+                plannedStacks[t] = current;
+                plannedCounts[t] = count + moved;
+                remaining -= moved;
             }
-        }
-        if (storageSlots.isEmpty() || hotbarSlots.isEmpty())
-            return false;
 
-        if (swapToStorage) {
-            //swap from hotbar to storage
-            for (int i = 0; i < storageSlots.size(); i++) {
-                Slot curSlot = storageSlots.get(i);
-                if (insertIntoExisting(toInsert, curSlot, player))
-                    inserted = true;
-                if (toInsert.isEmpty())
-                    break;
+            //Shove the rest into empty slots
+            BitSet empty = to.getEmptySlots();
+            for (int t = empty.nextSetBit(0); t >= 0 && remaining > 0; t = empty.nextSetBit(t + 1)) {
+                Slot toSlot = to.slots[t];
+                if (filledEmptySlots.get(t) || !toSlot.mayPlace(stack))
+                    continue;
+
+                int moved = Math.min(toSlot.getMaxStackSize(stack), remaining);
+                if (moved <= 0)
+                    continue;
+
+                moves.add(s);
+                moves.add(t);
+                moves.add(moved);
+                filledEmptySlots.set(t);
+                plannedStacks[t] = stack;
+                plannedCounts[t] = moved;
+                remaining -= moved;
             }
-            if (!toInsert.isEmpty()) {
-                for (int i = 0; i < storageSlots.size(); i++) {
-                    Slot curSlot = storageSlots.get(i);
-                    if (insertIntoEmpty(toInsert, curSlot))
-                        inserted = true;
-                    if (toInsert.isEmpty())
-                        break;
+        }
+
+        return moves;
+    }
+
+    private BulkTransferResult applyMoves(IntArrayList moves, SlotIndex.Group from, SlotIndex.Group to,
+            Container source, Container target) {
+        BitSet touchedSources = new BitSet();
+        BitSet touchedTargets = new BitSet();
+        for (int i = 0; i < moves.size(); i += 3) {
+            touchedSources.set(moves.getInt(i));
+            touchedTargets.set(moves.getInt(i + 1));
+        }
+
+        forEachSlot(from, touchedSources, slot -> {
+            if (slot instanceof ValidatedSlot validated)
+                validated.beginDeferredChanges();
+        });
+        forEachSlot(to, touchedTargets, slot -> {
+            if (slot instanceof ValidatedSlot validated)
+                validated.beginDeferredChanges();
+        });
+
+        int movedItems = 0;
+        try {
+            for (int i = 0; i < moves.size(); i += 3) {
+                Slot fromSlot = from.slots[moves.getInt(i)];
+                Slot toSlot = to.slots[moves.getInt(i + 1)];
+                int count = moves.getInt(i + 2);
+                ItemStack fromStack = fromSlot.getItem();
+                ItemStack toStack = toSlot.getItem();
+
+                if (toStack.isEmpty()) {
+                    //#if MC >= 11904
+                    toSlot.setByPlayer(fromStack.split(count));
+                    //#else
+                    //$$ toSlot.set(fromStack.split(count));
+                    //#endif
+                } else {
+                    fromStack.shrink(count);
+                    toStack.grow(count);
+                    toSlot.setChanged();
                 }
-            }
-        } else {
-            //swap from storage to hotbar
-            for (int i = 0; i < hotbarSlots.size(); i++) {
-                Slot curSlot = hotbarSlots.get(i);
-                if (insertIntoExisting(toInsert, curSlot, player))
-                    inserted = true;
-                if (toInsert.isEmpty())
-                    break;
-            }
-            if (!toInsert.isEmpty()) {
-                for (int i = 0; i < hotbarSlots.size(); i++) {
-                    Slot curSlot = hotbarSlots.get(i);
-                    if (insertIntoEmpty(toInsert, curSlot))
-                        inserted = true;
-                    if (toInsert.isEmpty())
-                        break;
+
+                if (fromStack.isEmpty()) {
+                    //#if MC >= 11904
+                    fromSlot.setByPlayer(ItemStack.EMPTY);
+                    //#else
+                    //$$ fromSlot.set(ItemStack.EMPTY);
+                    //#endif
+                } else {
+                    fromSlot.setChanged();
                 }
+
+                movedItems += count;
             }
+        } finally {
+            forEachSlot(from, touchedSources, slot -> {
+                if (slot instanceof ValidatedSlot validated)
+                    validated.endDeferredChanges();
+                slotIndex.refresh(slot);
+            });
+            forEachSlot(to, touchedTargets, slot -> {
+                if (slot instanceof ValidatedSlot validated)
+                    validated.endDeferredChanges();
+                slotIndex.refresh(slot);
+            });
+            source.setChanged();
+            target.setChanged();
         }
 
-        return inserted;
+        return new BulkTransferResult(movedItems, moves.size() / 3, touchedSources.cardinality(),
+                touchedTargets.cardinality());
+    }
+
+    private static void forEachSlot(SlotIndex.Group group, BitSet positions, Consumer<Slot> action) {
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            action.accept(group.slots[i]);
+        }
     }
 
     @Nullable
@@ -527,6 +908,8 @@ public class SyncedGuiDescription extends AbstractContainerMenu implements GuiDe
 
     @Override
     public void removed(Player player) {
+        // Send the messages queued right before closing
+        ScreenNetworkingImpl.flush(this);
         super.removed(player);
         if (blockInventory != null)
             blockInventory.stopOpen(player);
@@ -4,10 +4,14 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 
 import dev.tr7zw.trender.gui.impl.VisualLogger;
+import dev.tr7zw.trender.gui.impl.mixin.SlotAccessor;
 import dev.tr7zw.trender.gui.widget.WItemSlot;
 
 import java.util.Objects;
 import java.util.function.Predicate;
+
+import org.jetbrains.annotations.Nullable;
+
 import net.minecraft.world.Container;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.inventory.Slot;
@@ -22,13 +26,19 @@ public class ValidatedSlot extends Slot {
      */
     public static final Predicate<ItemStack> DEFAULT_ITEM_FILTER = stack -> true;
     private static final VisualLogger LOGGER = new VisualLogger(ValidatedSlot.class);
-    private final int slotNumber;
+    private int slotNumber;
     private boolean insertingAllowed = true;
     private boolean takingAllowed = true;
     private Predicate<ItemStack> inputFilter = DEFAULT_ITEM_FILTER;
     private Predicate<ItemStack> outputFilter = DEFAULT_ITEM_FILTER;
     protected final Multimap<WItemSlot, WItemSlot.ChangeListener> listeners = HashMultimap.create();
     private boolean visible = true;
+    private boolean changesDeferred = false;
+    private boolean changedWhileDeferred = false;
+    private boolean changeTracked = false;
+    private boolean changedSinceTick = false;
+    @Nullable
+    private SlotIndex slotIndex = null;
 
     public ValidatedSlot(Container inventory, int index, int x, int y) {
         super(inventory, index, x, y);
@@ -39,12 +49,13 @@ public class ValidatedSlot extends Slot {
 
     @Override
     public boolean mayPlace(ItemStack stack) {
-        return insertingAllowed && container.canPlaceItem(slotNumber, stack) && inputFilter.test(stack);
+        return insertingAllowed && isInBounds() && container.canPlaceItem(slotNumber, stack)
+                && inputFilter.test(stack);
     }
 
     @Override
     public boolean mayPickup(Player player) {
-        return takingAllowed && container.stillValid(player) && outputFilter.test(getItem());
+        return takingAllowed && isInBounds() && container.stillValid(player) && outputFilter.test(getItem());
     }
 
     @Override
@@ -54,6 +65,11 @@ public class ValidatedSlot extends Slot {
             return ItemStack.EMPTY;
         }
 
+        if (!isInBounds()) {
+            // Scrollable slot windows can extend past the end of their inventory
+            return ItemStack.EMPTY;
+        }
+
         ItemStack result = super.getItem();
         if (result == null) {
             LOGGER.warn("Prevented null-itemstack crash from: {}", container.getClass().getCanonicalName());
@@ -63,12 +79,140 @@ public class ValidatedSlot extends Slot {
         return result;
     }
 
+    @Override
+    public void set(ItemStack stack) {
+        if (!isInBounds()) {
+            if (!stack.isEmpty())
+                LOGGER.warn("Prevented out-of-bounds write to slot #{} of {}", slotNumber,
+                        container.getClass().getCanonicalName());
+            return;
+        }
+
+        super.set(stack);
+    }
+
     @Override
     public void setChanged() {
-        listeners.forEach((slot, listener) -> listener.onStackChanged(slot, container, getInventoryIndex(), getItem()));
+        if (changesDeferred) {
+            changedWhileDeferred = true;
+            return;
+        }
+
+        onChanged();
         super.setChanged();
     }
 
+    private void onChanged() {
+        if (slotIndex != null)
+            slotIndex.refresh(this);
+
+        if (changeTracked) {
+            // Reported once by the menu's change tracker at the end of the tick
+            changedSinceTick = true;
+        } else {
+            notifyChangeListeners();
+        }
+    }
+
+    void notifyChangeListeners() {
+        listeners.forEach((slot, listener) -> listener.onStackChanged(slot, container, getInventoryIndex(), getItem()));
+    }
+
+    /**
+     * {@return whether this slot has any change listeners}
+     */
+    boolean hasChangeListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * Sets whether changes to this slot are reported by a
+     * {@link SlotChangeTracker} instead of notifying the listeners immediately.
+     *
+     * @param changeTracked true if changes are tracked, false otherwise
+     */
+    void setChangeTracked(boolean changeTracked) {
+        this.changeTracked = changeTracked;
+    }
+
+    /**
+     * Sets the slot index of the menu, which is refreshed whenever this slot
+     * changes.
+     *
+     * @param slotIndex the slot index, or null
+     */
+    void setSlotIndex(@Nullable SlotIndex slotIndex) {
+        this.slotIndex = slotIndex;
+    }
+
+    /**
+     * Returns and clears whether {@link #setChanged()} was called since the last
+     * call of this method.
+     *
+     * @return true if this slot was marked as changed
+     */
+    boolean consumeChanged() {
+        boolean changed = changedSinceTick;
+        changedSinceTick = false;
+        return changed;
+    }
+
+    /**
+     * Starts deferring {@link #setChanged()} calls. Until
+     * {@link #endDeferredChanges()} is called, changes are only recorded.
+     */
+    void beginDeferredChanges() {
+        changesDeferred = true;
+    }
+
+    /**
+     * Stops deferring {@link #setChanged()} calls, and handles a single change if
+     * this slot changed in the meantime. The container is
+     * <em>not</em> notified; the caller is responsible for calling
+     * {@link Container#setChanged()} once it's done with all of its slots.
+     *
+     * @return true if this slot changed while changes were deferred
+     */
+    boolean endDeferredChanges() {
+        boolean changed = changedWhileDeferred;
+        changesDeferred = false;
+        changedWhileDeferred = false;
+
+        if (changed) {
+            onChanged();
+        }
+
+        return changed;
+    }
+
+    /**
+     * Moves this slot to a new position in its screen.
+     *
+     * @param x the new X coordinate
+     * @param y the new Y coordinate
+     */
+    public void setPosition(int x, int y) {
+        SlotAccessor accessor = (SlotAccessor) this;
+        accessor.libgui$setX(x);
+        accessor.libgui$setY(y);
+    }
+
+    /**
+     * Binds this slot to another index of its inventory. The index may be past
+     * the end of the inventory, in which case this slot is empty and can't be
+     * used.
+     *
+     * @param index the new inventory index
+     */
+    public void setInventoryIndex(int index) {
+        this.slotNumber = index;
+        ((SlotAccessor) this).libgui$setSlot(index);
+    }
+
+    private boolean isInBounds() {
+        return slotNumber >= 0 && slotNumber < container.getContainerSize();
+    }
+
     /**
      * Gets the index of this slot in its inventory.
      *
@@ -2,14 +2,22 @@ package dev.tr7zw.trender.gui.client;
 
 import java.text.DecimalFormat;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.function.Consumer;
 import java.util.function.DoubleConsumer;
 import java.util.function.DoubleSupplier;
 import java.util.function.IntConsumer;
 import java.util.function.IntSupplier;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
+import org.jetbrains.annotations.Nullable;
+
 import dev.tr7zw.trender.gui.client.AbstractConfigScreen.OptionInstance.SplitLine;
 import dev.tr7zw.trender.gui.widget.WButton;
 import dev.tr7zw.trender.gui.widget.WGridPanel;
@@ -17,7 +25,9 @@ import dev.tr7zw.trender.gui.widget.WLabel;
 import dev.tr7zw.trender.gui.widget.WLabeledDoubleSlider;
 import dev.tr7zw.trender.gui.widget.WLabeledIntSlider;
 import dev.tr7zw.trender.gui.widget.WListPanel;
+import dev.tr7zw.trender.gui.widget.WTextField;
 import dev.tr7zw.trender.gui.widget.WToggleButton;
+import dev.tr7zw.trender.gui.widget.data.InputResult;
 import dev.tr7zw.trender.gui.widget.data.Insets;
 import dev.tr7zw.transition.mc.ComponentProvider;
 import net.minecraft.client.Minecraft;
@@ -29,6 +39,8 @@ public abstract class AbstractConfigScreen extends LightweightGuiDescription {
     protected final static DecimalFormat DECIMAL_FORMATTER = new DecimalFormat("###.##");
     private final Screen previous;
     private final Component title;
+    private final Map<String, Component> labels = new HashMap<>();
+    private final Map<String, Component> tooltips = new HashMap<>();
 
     public AbstractConfigScreen(Component title, Screen previous) {
         this.previous = previous;
@@ -49,71 +61,126 @@ public abstract class AbstractConfigScreen extends LightweightGuiDescription {
 
     public abstract void reset();
 
+    /**
+     * Called after an option row changed a value. Does nothing by default;
+     * screens can schedule a debounced save here, for example with
+     * {@link ConfigPersistence#save(Object)}.
+     */
+    protected void onOptionChanged() {
+    }
+
+    /**
+     * Creates a list of option rows with all sections expanded and no search
+     * field.
+     *
+     * @param options the options
+     * @return the option list
+     */
     public WListPanel<OptionInstance, WGridPanel> createOptionList(List<OptionInstance> options) {
-        return new WListPanel<OptionInstance, WGridPanel>(options, () -> new WGridPanel(), (option, panel) -> {
-            panel.setInsets(new Insets(0, 2, 0, 0));
-            switch (option) {
-            case OptionInstance.Toggle toggle -> {
-                WToggleButton tb = new WToggleButton(ComponentProvider.translatable(toggle.translationKey()));
-                tb.setToggle(toggle.current.get());
-                tb.setOnRefresh(() -> tb.setToggle(toggle.current.get()));
-                tb.setOnToggle(toggle.update);
-                tb.setToolip(getOptionalTooltip(toggle.translationKey()));
-                panel.add(tb, 0, 0, 10, 1);
-            }
-            case OptionInstance.DoubleOption dblo -> {
-                WLabeledDoubleSlider slider = new WLabeledDoubleSlider(dblo.min(), dblo.max(), dblo.steps());
+        return createOptionList(options, null, false);
+    }
+
+    /**
+     * Creates a list of option rows. Each {@link SplitLine} starts a section that
+     * can be collapsed by clicking it; rows are only built once they're visible.
+     * If a search field is passed, the list is filtered by the translation keys
+     * and translated names of the options while typing. A section is shown
+     * completely if its own name matches.
+     *
+     * @param options   the options
+     * @param search    the search field, or null
+     * @param collapsed true if the sections start collapsed
+     * @return the option list
+     */
+    public WListPanel<OptionInstance, WGridPanel> createOptionList(List<OptionInstance> options,
+            @Nullable WTextField search, boolean collapsed) {
+        OptionFilter filter = new OptionFilter(options, collapsed);
+        WListPanel<OptionInstance, WGridPanel> list = new WListPanel<OptionInstance, WGridPanel>(options,
+                () -> new WGridPanel(), (option, panel) -> configureRow(option, panel, filter));
+        list.setFilter(filter);
+        filter.list = list;
+        if (search != null)
+            search.setChangedListener(filter::setQuery);
+        return list;
+    }
+
+    private void configureRow(OptionInstance option, WGridPanel panel, OptionFilter filter) {
+        panel.setInsets(new Insets(0, 2, 0, 0));
+        switch (option) {
+        case OptionInstance.Toggle toggle -> {
+            WToggleButton tb = new WToggleButton(label(toggle.translationKey()));
+            tb.setToggle(toggle.current.get());
+            tb.setOnRefresh(() -> tb.setToggle(toggle.current.get()));
+            tb.setOnToggle(value -> {
+                toggle.update.accept(value);
+                onOptionChanged();
+            });
+            tb.setToolip(getOptionalTooltip(toggle.translationKey()));
+            panel.add(tb, 0, 0, 10, 1);
+        }
+        case OptionInstance.DoubleOption dblo -> {
+            WLabeledDoubleSlider slider = new WLabeledDoubleSlider(dblo.min(), dblo.max(), dblo.steps());
+            slider.setValue(dblo.current().getAsDouble());
+            slider.setOnRefresh(() -> {
                 slider.setValue(dblo.current().getAsDouble());
-                slider.setOnRefresh(() -> {
-                    slider.setValue(dblo.current().getAsDouble());
-                    slider.setLabel(slider.getLabelUpdater().updateLabel(slider.getValue()));
-                });
-                slider.setValueChangeListener(dblo.update());
-                slider.setLabelUpdater(d -> ComponentProvider.translatable(dblo.translationKey())
-                        .append(": " + DECIMAL_FORMATTER.format(d)));
-                slider.setToolip(getOptionalTooltip(dblo.translationKey()));
-                slider.setIgnoreScrolling(true);
-                panel.add(slider, 0, 0, 10, 1);
-            }
-            case OptionInstance.IntOption dblo -> {
-                WLabeledIntSlider slider = new WLabeledIntSlider(dblo.min(), dblo.max());
+                slider.setLabel(slider.getLabelUpdater().updateLabel(slider.getValue()));
+            });
+            slider.setValueChangeListener(value -> {
+                dblo.update().accept(value);
+                onOptionChanged();
+            });
+            slider.setLabelUpdater(
+                    d -> label(dblo.translationKey()).copy().append(": " + DECIMAL_FORMATTER.format(d)));
+            slider.setToolip(getOptionalTooltip(dblo.translationKey()));
+            slider.setIgnoreScrolling(true);
+            panel.add(slider, 0, 0, 10, 1);
+        }
+        case OptionInstance.IntOption dblo -> {
+            WLabeledIntSlider slider = new WLabeledIntSlider(dblo.min(), dblo.max());
+            slider.setValue(dblo.current().getAsInt());
+            slider.setOnRefresh(() -> {
                 slider.setValue(dblo.current().getAsInt());
-                slider.setOnRefresh(() -> {
-                    slider.setValue(dblo.current().getAsInt());
-                    slider.setLabel(slider.getLabelUpdater().updateLabel(slider.getValue()));
-                });
-                slider.setValueChangeListener(dblo.update());
-                slider.setLabelUpdater(d -> ComponentProvider.translatable(dblo.translationKey()).append(": " + d));
-                slider.setToolip(getOptionalTooltip(dblo.translationKey()));
-                slider.setIgnoreScrolling(true);
-                panel.add(slider, 0, 0, 10, 1);
-            }
-            case OptionInstance.EnumOption<?> enm -> {
-                WButton tb = new WButton(
-                        ComponentProvider.translatable(enm.translationKey() + "." + enm.current().get().name()));
-                tb.setOnClick(() -> {
-                    Enum cur = enm.current().get();
-                    List<Enum<?>> values = Arrays.asList(enm.targetEnum().getEnumConstants());
-                    int id = (values.indexOf(cur) + 1) % values.size();
-                    enm.update().accept(values.get(id));
-                    tb.setLabel(
-                            ComponentProvider.translatable(enm.translationKey() + "." + enm.current().get().name()));
-                });
-                tb.setOnRefresh(() -> tb.setLabel(
-                        ComponentProvider.translatable(enm.translationKey() + "." + enm.current().get().name())));
-                tb.setToolip(getOptionalTooltip(enm.translationKey()));
-                WLabel label = new WLabel(ComponentProvider.translatable(enm.translationKey()));
-                panel.setGaps(-13, -13);
-                panel.add(label, 0, 1);
-                panel.add(tb, (int) (Minecraft.getInstance().font.width(label.getText()) / 4.7), 0, 18, 1);
-            }
-            case SplitLine line -> {
-                WLabel label = new WLabel(ComponentProvider.translatable(line.translationKey()));
-                panel.setInsets(new Insets(6, 3, 0, 0));
-                panel.add(label, 0, 0, 10, 1);
-            }
-            }
-        });
+                slider.setLabel(slider.getLabelUpdater().updateLabel(slider.getValue()));
+            });
+            slider.setValueChangeListener(value -> {
+                dblo.update().accept(value);
+                onOptionChanged();
+            });
+            slider.setLabelUpdater(d -> label(dblo.translationKey()).copy().append(": " + d));
+            slider.setToolip(getOptionalTooltip(dblo.translationKey()));
+            slider.setIgnoreScrolling(true);
+            panel.add(slider, 0, 0, 10, 1);
+        }
+        case OptionInstance.EnumOption<?> enm -> {
+            WButton tb = new WButton(label(enm.translationKey() + "." + enm.current().get().name()));
+            tb.setOnClick(() -> {
+                Enum cur = enm.current().get();
+                List<Enum<?>> values = Arrays.asList(enm.targetEnum().getEnumConstants());
+                int id = (values.indexOf(cur) + 1) % values.size();
+                enm.update().accept(values.get(id));
+                onOptionChanged();
+                tb.setLabel(label(enm.translationKey() + "." + enm.current().get().name()));
+            });
+            tb.setOnRefresh(() -> tb.setLabel(label(enm.translationKey() + "." + enm.current().get().name())));
+            tb.setToolip(getOptionalTooltip(enm.translationKey()));
+            WLabel label = new WLabel(label(enm.translationKey()));
+            panel.setGaps(-13, -13);
+            panel.add(label, 0, 1);
+            panel.add(tb, (int) (Minecraft.getInstance().font.width(label.getText()) / 4.7), 0, 18, 1);
+        }
+        case SplitLine line -> {
+            WLabel label = new WLabel(filter.sectionTitle(line)) {
+                @Override
+                public InputResult onClick(int x, int y, int button) {
+                    filter.toggle(line);
+                    return InputResult.PROCESSED;
+                }
+            };
+            label.setOnRefresh(() -> label.setText(filter.sectionTitle(line)));
+            panel.setInsets(new Insets(6, 3, 0, 0));
+            panel.add(label, 0, 0, 10, 1);
+        }
+        }
     }
 
     public OptionInstance getBooleanOption(String translationKey, Supplier<Boolean> current, Consumer<Boolean> update) {
@@ -143,13 +210,128 @@ public abstract class AbstractConfigScreen extends LightweightGuiDescription {
         return new OptionInstance.SplitLine(translationKey);
     }
 
-    private static Component getOptionalTooltip(String translationKey) {
+    /**
+     * Gets the cached translated label of a translation key. The returned
+     * component is shared and must be {@linkplain Component#copy() copied}
+     * before appending to it.
+     *
+     * @param translationKey the translation key
+     * @return the label
+     */
+    protected Component label(String translationKey) {
+        return labels.computeIfAbsent(translationKey, ComponentProvider::translatable);
+    }
+
+    @Nullable
+    private Component getOptionalTooltip(String translationKey) {
+        if (tooltips.containsKey(translationKey))
+            return tooltips.get(translationKey);
+
         String key = translationKey + ".tooltip";
         Component comp = ComponentProvider.translatable(key);
-        if (key.equals(comp.getString())) {
-            return null;
-        } else {
-            return comp;
+        if (key.equals(comp.getString()))
+            comp = null;
+        tooltips.put(translationKey, comp);
+        return comp;
+    }
+
+    /**
+     * Filters the option rows by collapsed sections and the search query.
+     */
+    private final class OptionFilter implements Predicate<OptionInstance> {
+        private final Map<OptionInstance, Integer> indices = new IdentityHashMap<>();
+        /** The index of the section header of each option, or -1. */
+        private final int[] sections;
+        private final String[] searchText;
+        private final BitSet collapsed = new BitSet();
+        private final BitSet matches = new BitSet();
+        private String query = "";
+        @Nullable
+        private WListPanel<OptionInstance, WGridPanel> list;
+
+        OptionFilter(List<OptionInstance> options, boolean collapsed) {
+            sections = new int[options.size()];
+            searchText = new String[options.size()];
+            int section = -1;
+            for (int i = 0; i < options.size(); i++) {
+                OptionInstance option = options.get(i);
+                indices.putIfAbsent(option, i);
+                if (option instanceof SplitLine) {
+                    section = i;
+                    if (collapsed)
+                        this.collapsed.set(i);
+                }
+                sections[i] = section;
+                String key = translationKey(option);
+                searchText[i] = (key + " " + label(key).getString()).toLowerCase(Locale.ROOT);
+            }
+        }
+
+        @Override
+        public boolean test(OptionInstance option) {
+            Integer index = indices.get(option);
+            if (index == null)
+                return true;
+            if (!query.isEmpty())
+                return matches.get(index);
+            if (option instanceof SplitLine)
+                return true;
+            return sections[index] < 0 || !collapsed.get(sections[index]);
+        }
+
+        void setQuery(String query) {
+            String normalized = query.trim().toLowerCase(Locale.ROOT);
+            if (normalized.equals(this.query))
+                return;
+
+            this.query = normalized;
+            matches.clear();
+            if (!normalized.isEmpty()) {
+                for (int i = 0; i < searchText.length; i++) {
+                    int section = sections[i];
+                    if (searchText[i].contains(normalized) || (section >= 0 && section != i
+                            && searchText[section].contains(normalized))) {
+                        matches.set(i);
+                        if (section >= 0)
+                            matches.set(section);
+                    }
+                }
+            }
+            relayout(true);
+        }
+
+        void toggle(SplitLine line) {
+            Integer index = indices.get(line);
+            if (index == null || !query.isEmpty())
+                return;
+            collapsed.flip(index);
+            relayout(false);
+        }
+
+        Component sectionTitle(SplitLine line) {
+            Integer index = indices.get(line);
+            if (index == null)
+                return label(line.translationKey());
+            String arrow = query.isEmpty() && collapsed.get(index) ? "\u25B6 " : "\u25BC ";
+            return ComponentProvider.literal(arrow).append(label(line.translationKey()));
+        }
+
+        private void relayout(boolean scrollToTop) {
+            if (list == null)
+                return;
+            if (scrollToTop)
+                list.getScrollBar().setValue(0);
+            list.layout();
+        }
+
+        private static String translationKey(OptionInstance option) {
+            return switch (option) {
+            case OptionInstance.Toggle toggle -> toggle.translationKey();
+            case OptionInstance.DoubleOption dblo -> dblo.translationKey();
+            case OptionInstance.IntOption into -> into.translationKey();
+            case OptionInstance.EnumOption<?> enm -> enm.translationKey();
+            case SplitLine line -> line.translationKey();
+            };
         }
     }
 
@@ -5,6 +5,7 @@ import java.util.Objects;
 import java.util.function.Consumer;
 
 import dev.tr7zw.trender.gui.impl.LibGuiCommon;
+import dev.tr7zw.trender.gui.impl.client.SlotGridGeometry;
 import dev.tr7zw.trender.gui.impl.client.style.GuiStyle;
 import dev.tr7zw.trender.gui.impl.client.style.TextureConstants;
 import dev.tr7zw.trender.gui.impl.client.style.WidgetTextures;
@@ -67,30 +68,18 @@ public interface BackgroundPainter {
             ScreenDrawing.drawBeveledPanel(context, left - 1, top - 1, panel.getWidth() + 2, panel.getHeight() + 2,
                     0xB8000000, 0x4C000000, 0xB8FFFFFF);
         } else {
-            for (int x = 0; x < slot.getWidth() / 18; ++x) {
-                for (int y = 0; y < slot.getHeight() / 18; ++y) {
-                    int index = x + y * (slot.getWidth() / 18);
-                    float px = 1 / 64f;
-                    if (slot.isBigSlot()) {
-                        int sx = (x * 18) + left - 4;
-                        int sy = (y * 18) + top - 4;
-                        ScreenDrawing.texturedRect(context, sx, sy, 26, 26, WItemSlot.SLOT_TEXTURE, 18 * px, 0, 44 * px,
-                                26 * px, 0xFF_FFFFFF);
-                        if (slot.getFocusedSlot() == index) {
-                            ScreenDrawing.texturedRect(context, sx, sy, 26, 26, WItemSlot.SLOT_TEXTURE, 18 * px,
-                                    26 * px, 44 * px, 52 * px, 0xFF_FFFFFF);
-                        }
-                    } else {
-                        int sx = (x * 18) + left;
-                        int sy = (y * 18) + top;
-                        ScreenDrawing.texturedRect(context, sx, sy, 18, 18, WItemSlot.SLOT_TEXTURE, 0, 0, 18 * px,
-                                18 * px, 0xFF_FFFFFF);
-                        if (slot.getFocusedSlot() == index) {
-                            ScreenDrawing.texturedRect(context, sx, sy, 18, 18, WItemSlot.SLOT_TEXTURE, 0, 26 * px,
-                                    18 * px, 44 * px, 0xFF_FFFFFF);
-                        }
-                    }
-                }
+            int slotsWide = slot.getWidth() / 18;
+            int slotsHigh = slot.getHeight() / 18;
+            boolean big = slot.isBigSlot();
+            ScreenDrawing.texturedQuads(context, left, top, WItemSlot.SLOT_TEXTURE,
+                    SlotGridGeometry.getGrid(slotsWide, slotsHigh, big), 0xFF_FFFFFF, SlotGridGeometry.TEXTURE_SIZE,
+                    SlotGridGeometry.TEXTURE_SIZE);
+
+            int focused = slot.getFocusedSlot();
+            if (focused >= 0 && focused < slotsWide * slotsHigh) {
+                ScreenDrawing.texturedQuads(context, left, top, WItemSlot.SLOT_TEXTURE,
+                        SlotGridGeometry.getFocusQuad(focused % slotsWide, focused / slotsWide, big),
+                        0xFF_FFFFFF, SlotGridGeometry.TEXTURE_SIZE, SlotGridGeometry.TEXTURE_SIZE);
             }
         }
     };
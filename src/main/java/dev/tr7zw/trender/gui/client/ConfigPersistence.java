@@ -0,0 +1,233 @@
+package dev.tr7zw.trender.gui.client;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+/**
+ * Loads and saves a config object as a JSON file without blocking the render
+ * thread.
+ *
+ * <p>
+ * Saves are debounced: {@link #save(Object)} only schedules a write that runs
+ * on a background thread after no further saves were requested for the
+ * {@linkplain #setDelay(long) delay}, so a burst of changes, like dragging a
+ * slider, results in one write. The file is written to a temporary file first
+ * and then moved over the old one, so a crash never leaves a partially written
+ * config. Pending writes are flushed when the game shuts down.
+ *
+ * <p>
+ * The config object is serialized on the thread that calls
+ * {@link #save(Object)}, so only the JSON is handed to the background thread,
+ * and changes made to the object afterwards are only written by the next save.
+ *
+ * @param <T> the config type
+ */
+public final class ConfigPersistence<T> {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final long DEFAULT_DELAY_MILLIS = 500;
+    private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "TRender config IO");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** The instances flushed by the shared shutdown hook. */
+    private static final Set<ConfigPersistence<?>> INSTANCES = Collections
+            .synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(ConfigPersistence::flushAll, "TRender config flush"));
+    }
+
+    private final Path file;
+    private final Class<T> type;
+    private final Supplier<T> defaults;
+    private final Object lock = new Object();
+    private final Object writeLock = new Object();
+    private long delayMillis = DEFAULT_DELAY_MILLIS;
+    @Nullable
+    private String pending = null;
+    @Nullable
+    private ScheduledFuture<?> scheduled = null;
+    private long requestedWrites = 0;
+    private long writes = 0;
+
+    /**
+     * Constructs a config persistence for a file.
+     *
+     * @param file     the config file
+     * @param type     the config class
+     * @param defaults the supplier of the default config, used if the file
+     *                 doesn't exist or can't be read
+     */
+    public ConfigPersistence(Path file, Class<T> type, Supplier<T> defaults) {
+        this.file = Objects.requireNonNull(file, "file");
+        this.type = Objects.requireNonNull(type, "type");
+        this.defaults = Objects.requireNonNull(defaults, "defaults");
+        INSTANCES.add(this);
+    }
+
+    private static void flushAll() {
+        List<ConfigPersistence<?>> instances;
+        synchronized (INSTANCES) {
+            instances = new ArrayList<>(INSTANCES);
+        }
+        for (ConfigPersistence<?> instance : instances) {
+            instance.flush();
+        }
+    }
+
+    /**
+     * Sets the time without further saves after which a pending save is
+     * written.
+     *
+     * @param delayMillis the delay in milliseconds
+     * @return this persistence
+     */
+    public ConfigPersistence<T> setDelay(long delayMillis) {
+        if (delayMillis < 0)
+            throw new IllegalArgumentException("Delay must not be negative: " + delayMillis);
+        this.delayMillis = delayMillis;
+        return this;
+    }
+
+    /**
+     * Loads the config on the calling thread.
+     *
+     * @return the loaded config, or the default config if the file doesn't exist
+     *         or can't be read
+     */
+    public T load() {
+        if (Files.notExists(file))
+            return defaults.get();
+
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            T value = GSON.fromJson(reader, type);
+            return value != null ? value : defaults.get();
+        } catch (IOException | JsonParseException e) {
+            LOGGER.error("[LibGui] Error loading config {}: {}", file, e.getMessage());
+            return defaults.get();
+        }
+    }
+
+    /**
+     * Loads the config on the background thread.
+     *
+     * @return a future of the loaded config, or the default config if the file
+     *         doesn't exist or can't be read
+     */
+    public CompletableFuture<T> loadAsync() {
+        return CompletableFuture.supplyAsync(this::load, EXECUTOR);
+    }
+
+    /**
+     * Serializes the config and schedules a write of it. The write replaces any
+     * pending write and runs after the delay.
+     *
+     * @param value the config
+     */
+    public void save(T value) {
+        Objects.requireNonNull(value, "value");
+        String json = GSON.toJson(value);
+        synchronized (lock) {
+            pending = json;
+            requestedWrites++;
+            if (scheduled != null)
+                scheduled.cancel(false);
+            scheduled = EXECUTOR.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes the pending config right away on the calling thread, and waits for
+     * a write in progress to finish.
+     */
+    public void flush() {
+        String json;
+        synchronized (lock) {
+            json = pending;
+            pending = null;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+                scheduled = null;
+            }
+        }
+
+        synchronized (writeLock) {
+            if (json != null)
+                write(json);
+        }
+    }
+
+    private void write(String json) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Path parent = file.getParent();
+            if (parent != null)
+                Files.createDirectories(parent);
+            Files.writeString(temp, json, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            synchronized (lock) {
+                writes++;
+            }
+        } catch (IOException e) {
+            LOGGER.error("[LibGui] Error saving config {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * {@return whether a write is pending}
+     */
+    public boolean isDirty() {
+        synchronized (lock) {
+            return pending != null;
+        }
+    }
+
+    /**
+     * {@return the number of requested writes}
+     */
+    public long getRequestedWrites() {
+        synchronized (lock) {
+            return requestedWrites;
+        }
+    }
+
+    /**
+     * {@return the number of writes to the file, after coalescing}
+     */
+    public long getWrites() {
+        synchronized (lock) {
+            return writes;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package dev.tr7zw.trender.gui.client;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+import org.jetbrains.annotations.Nullable;
+
+import dev.tr7zw.trender.gui.widget.icon.Icon;
+import net.minecraft.client.gui.screens.Screen;
+import net.minecraft.network.chat.Component;
+
+/**
+ * Lightweight metadata of registered config screens, used by the built-in
+ * config screen list to show the screens without constructing them.
+ *
+ * <p>
+ * Mods can register the title, icon and ordering of the same factory instance
+ * they add to the config screen manager:
+ *
+ * <pre>
+ * {@code
+ * ConfigScreenMetadata.register(factory, Component.literal("My Mod"), new ItemIcon(Items.BOOK), 0);
+ * }
+ * </pre>
+ *
+ * <p>
+ * For factories without registered metadata, the title is read from a screen
+ * constructed once by {@link #resolve(Function)}. The result is cached, so
+ * each such screen is only constructed once per game session.
+ */
+public final class ConfigScreenMetadata {
+    /** The order of factories without registered metadata. */
+    public static final int DEFAULT_ORDER = 0;
+
+    // Weak keys, so unregistered factories don't leak their mods' screens
+    private static final Map<Function<Screen, Screen>, Entry> ENTRIES = new WeakHashMap<>();
+    private static boolean prewarmEnabled = false;
+
+    private ConfigScreenMetadata() {
+    }
+
+    /**
+     * Registers the metadata of a config screen factory.
+     *
+     * @param factory the config screen factory, which receives the parent screen
+     * @param title   the title shown in the config screen list
+     */
+    public static void register(Function<Screen, Screen> factory, Component title) {
+        register(factory, title, null, DEFAULT_ORDER);
+    }
+
+    /**
+     * Registers the metadata of a config screen factory.
+     *
+     * @param factory the config screen factory, which receives the parent screen
+     * @param title   the title shown in the config screen list
+     * @param icon    the icon shown next to the title, or null
+     * @param order   the sort order; lower values are listed first
+     */
+    public static void register(Function<Screen, Screen> factory, Component title, @Nullable Icon icon, int order) {
+        Objects.requireNonNull(factory, "factory");
+        Objects.requireNonNull(title, "title");
+        ENTRIES.put(factory, new Entry(title, icon, order));
+    }
+
+    /**
+     * Gets the known metadata of a config screen factory.
+     *
+     * @param factory the config screen factory
+     * @return the registered or already resolved metadata, or null if the
+     *         factory hasn't been resolved yet
+     */
+    @Nullable
+    public static Entry get(Function<Screen, Screen> factory) {
+        return ENTRIES.get(factory);
+    }
+
+    /**
+     * Gets the metadata of a config screen factory, constructing a screen to
+     * read its title if no metadata is known yet.
+     *
+     * @param factory the config screen factory
+     * @return the metadata
+     */
+    public static Entry resolve(Function<Screen, Screen> factory) {
+        Entry entry = ENTRIES.get(factory);
+        if (entry == null) {
+            entry = new Entry(factory.apply(null).getTitle(), null, DEFAULT_ORDER);
+            ENTRIES.put(factory, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Sorts config screen factories by their registered order. Factories with
+     * the same order keep their relative order. No screens are constructed.
+     *
+     * @param factories the config screen factories
+     * @return a sorted copy of the list
+     */
+    public static List<Function<Screen, Screen>> sort(List<Function<Screen, Screen>> factories) {
+        List<Function<Screen, Screen>> sorted = new ArrayList<>(factories);
+        sorted.sort(Comparator.comparingInt(factory -> {
+            Entry entry = ENTRIES.get(factory);
+            return entry != null ? entry.order() : DEFAULT_ORDER;
+        }));
+        return sorted;
+    }
+
+    /**
+     * {@return whether the config screen list resolves unknown titles ahead of
+     * time while it's open}
+     */
+    public static boolean isPrewarmEnabled() {
+        return prewarmEnabled;
+    }
+
+    /**
+     * Sets whether the config screen list resolves unknown titles ahead of time
+     * while it's open. Titles are resolved one per client tick, so scrolling to
+     * rows that weren't visible yet doesn't construct screens. This only spreads
+     * the construction of those screens over several ticks on the client thread,
+     * and constructs screens whose rows are never shown, so it's disabled by
+     * default. Without it, a title is only resolved when its row becomes visible.
+     *
+     * @param prewarmEnabled true to resolve titles in the background
+     */
+    public static void setPrewarmEnabled(boolean prewarmEnabled) {
+        ConfigScreenMetadata.prewarmEnabled = prewarmEnabled;
+    }
+
+    /**
+     * The metadata of a config screen.
+     *
+     * @param title the title
+     * @param icon  the icon, or null
+     * @param order the sort order
+     */
+    public record Entry(Component title, @Nullable Icon icon, int order) {
+    }
+}
@@ -18,6 +18,11 @@ import dev.tr7zw.trender.gui.impl.client.FocusElements;
 //#endif
 import dev.tr7zw.trender.gui.impl.client.MouseInputHandler;
 import dev.tr7zw.trender.gui.impl.client.NarrationHelper;
+import dev.tr7zw.trender.gui.impl.client.RenderDiagnostics;
+import dev.tr7zw.trender.gui.impl.client.WidgetProfiler;
+import dev.tr7zw.trender.gui.impl.jfr.GuiEvents;
+import dev.tr7zw.trender.gui.impl.jfr.PaintFrameEvent;
+import dev.tr7zw.trender.gui.impl.jfr.ScreenLifecycleEvent;
 import dev.tr7zw.trender.gui.impl.mixin.client.ScreenAccessor;
 import dev.tr7zw.trender.gui.widget.WPanel;
 import dev.tr7zw.trender.gui.widget.WWidget;
@@ -80,6 +85,7 @@ public class CottonClientScreen extends Screen implements CottonScreenImpl {
             root.addPainters();
         description.addPainters();
         reposition(width, height);
+        ScreenLifecycleEvent.emit("init", this, description);
 
         //#if MC >= 11904
         if (root != null) {
@@ -96,6 +102,8 @@ public class CottonClientScreen extends Screen implements CottonScreenImpl {
     public void removed() {
         super.removed();
         VisualLogger.reset();
+        WidgetProfiler.reset();
+        ScreenLifecycleEvent.emit("removed", this, description);
     }
 
     @Nullable
@@ -141,7 +149,18 @@ public class CottonClientScreen extends Screen implements CottonScreenImpl {
             if (root != null) {
                 GL11.glEnable(GL11.GL_SCISSOR_TEST);
                 Scissors.refreshScissors();
+                RenderDiagnostics.beginFrame();
+                PaintFrameEvent event = new PaintFrameEvent();
+                event.begin();
+                int token = WidgetProfiler.begin(root, WidgetProfiler.Phase.PAINT);
                 root.paint(context, left, top, mouseX - left, mouseY - top);
+                WidgetProfiler.end(token);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.screenClass = getClass().getName();
+                    event.subtreeSize = GuiEvents.countWidgets(root);
+                    event.commit();
+                }
                 GL11.glDisable(GL11.GL_SCISSOR_TEST);
                 Scissors.checkStackIsEmpty();
             }
@@ -187,6 +206,8 @@ public class CottonClientScreen extends Screen implements CottonScreenImpl {
         }
 
         VisualLogger.render(renderContext);
+        WidgetProfiler.render(renderContext);
+        RenderDiagnostics.render(renderContext);
     }
 
     @Override
@@ -195,7 +216,9 @@ public class CottonClientScreen extends Screen implements CottonScreenImpl {
         if (description != null) {
             WPanel root = description.getRootPanel();
             if (root != null) {
+                int token = WidgetProfiler.begin(root, WidgetProfiler.Phase.TICK);
                 root.tick();
+                WidgetProfiler.end(token);
             }
         }
     }
@@ -7,57 +7,147 @@ import net.fabricmc.fabric.api.client.rendering.v1.HudRenderCallback;
 import net.minecraft.client.Minecraft;
 import com.mojang.blaze3d.platform.Window;
 
+import dev.tr7zw.trender.gui.widget.WPanel;
 import dev.tr7zw.trender.gui.widget.WWidget;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
 
 /**
  * Manages widgets that are painted on the in-game HUD.
+ *
+ * <p>
+ * Each widget is a layer of the HUD. Layers are painted in ascending
+ * {@linkplain #setZIndex(WWidget, int) z-index} order, and layers with the
+ * same z-index in the order they were added. Positioners only run when the
+ * window or the widget is resized, or when the positioner changes.
+ *
+ * <p>
+ * Widgets that show computed readouts can implement {@link Refreshable} and be
+ * given a {@linkplain #setRefreshRate(WWidget, int) refresh rate}, so that
+ * their content is computed at that rate instead of every frame. The cost of
+ * the last HUD frame is reported by {@link #getLastFrameStats()}.
  */
 public final class CottonHud {
-    private static final Set<WWidget> widgets = new HashSet<>();
-    private static final Map<WWidget, Positioner> positioners = new HashMap<>();
+    private static final Comparator<Layer> LAYER_ORDER = Comparator.<Layer> comparingInt(layer -> layer.zIndex)
+            .thenComparingLong(layer -> layer.sequence);
+    private static final Layer[] NO_LAYERS = new Layer[0];
+    private static final Map<WWidget, Layer> layers = new HashMap<>();
+    private static Layer[] sortedLayers = NO_LAYERS;
+    private static boolean orderDirty = false;
+    private static long nextSequence = 0;
+    private static int lastHudWidth = -1;
+    private static int lastHudHeight = -1;
+    private static FrameStats lastFrameStats = new FrameStats(0, 0, 0, 0);
 
     static {
         //TODO
         //#if FABRIC
         HudRenderCallback.EVENT.register((drawContext, tickDelta) -> {
-            Window window = Minecraft.getInstance().getWindow();
-            int hudWidth = window.getGuiScaledWidth();
-            int hudHeight = window.getGuiScaledHeight();
             //#if MC >= 12000
             RenderContext renderContext = new RenderContext(drawContext);
             //#else
             //$$ RenderContext renderContext = new RenderContext(Minecraft.getInstance().screen, drawContext);
             //#endif
-            for (WWidget widget : widgets) {
-                Positioner positioner = positioners.get(widget);
-                if (positioner != null) {
-                    positioner.reposition(widget, hudWidth, hudHeight);
-                }
-
-                widget.paint(renderContext, widget.getX(), widget.getY(), -1, -1);
-            }
+            paint(renderContext);
         });
 
         ClientTickEvents.END_CLIENT_TICK.register(client -> {
-            for (WWidget widget : widgets) {
-                widget.tick();
+            for (Layer layer : getSortedLayers()) {
+                layer.widget.tick();
             }
         });
         //#endif
     }
 
+    private static Layer[] getSortedLayers() {
+        if (orderDirty) {
+            Layer[] sorted = layers.values().stream().filter(layer -> layer.added).toArray(Layer[]::new);
+            Arrays.sort(sorted, LAYER_ORDER);
+            sortedLayers = sorted;
+            orderDirty = false;
+        }
+
+        return sortedLayers;
+    }
+
+    private static void paint(RenderContext context) {
+        long start = System.nanoTime();
+        Window window = Minecraft.getInstance().getWindow();
+        int hudWidth = window.getGuiScaledWidth();
+        int hudHeight = window.getGuiScaledHeight();
+        boolean resized = hudWidth != lastHudWidth || hudHeight != lastHudHeight;
+        lastHudWidth = hudWidth;
+        lastHudHeight = hudHeight;
+
+        Layer[] sorted = getSortedLayers();
+        int repositioned = 0;
+        int refreshed = 0;
+        for (Layer layer : sorted) {
+            WWidget widget = layer.widget;
+            if (layer.positioner != null && (resized || layer.positionDirty
+                    || widget.getWidth() != layer.positionedWidth || widget.getHeight() != layer.positionedHeight)) {
+                layer.positioner.reposition(widget, hudWidth, hudHeight);
+                layer.positionDirty = false;
+                layer.positionedWidth = widget.getWidth();
+                layer.positionedHeight = widget.getHeight();
+                repositioned++;
+            }
+
+            if (layer.refreshIntervalNanos > 0 && start - layer.lastRefresh >= layer.refreshIntervalNanos) {
+                layer.lastRefresh = start;
+                refresh(widget);
+                refreshed++;
+            }
+
+            widget.paint(context, widget.getX(), widget.getY(), -1, -1);
+        }
+
+        lastFrameStats = new FrameStats(sorted.length, repositioned, refreshed, System.nanoTime() - start);
+    }
+
+    private static void refresh(WWidget widget) {
+        if (widget instanceof Refreshable refreshable) {
+            refreshable.refresh();
+        }
+
+        if (widget instanceof WPanel panel) {
+            panel.streamChildren().forEach(CottonHud::refresh);
+        }
+    }
+
+    private static void stopRefreshing(WWidget widget) {
+        if (widget instanceof Refreshable refreshable) {
+            refreshable.stopRefreshing();
+        }
+
+        if (widget instanceof WPanel panel) {
+            panel.streamChildren().forEach(CottonHud::stopRefreshing);
+        }
+    }
+
+    private static Layer getOrCreateLayer(WWidget widget) {
+        Objects.requireNonNull(widget, "widget");
+        return layers.computeIfAbsent(widget, Layer::new);
+    }
+
     /**
      * Adds a new widget to the HUD.
      *
      * @param widget the widget
      */
     public static void add(WWidget widget) {
-        widgets.add(widget);
+        Layer layer = getOrCreateLayer(widget);
+        if (!layer.added) {
+            layer.added = true;
+            layer.sequence = nextSequence++;
+            orderDirty = true;
+        }
     }
 
     /**
@@ -94,7 +184,7 @@ public final class CottonHud {
      * @param positioner the positioner
      */
     public static void add(WWidget widget, Positioner positioner) {
-        widgets.add(widget);
+        add(widget);
         setPositioner(widget, positioner);
     }
 
@@ -107,7 +197,7 @@ public final class CottonHud {
      * @param height     the height of the widget
      */
     public static void add(WWidget widget, Positioner positioner, int width, int height) {
-        widgets.add(widget);
+        add(widget);
         widget.setSize(width, height);
         setPositioner(widget, positioner);
     }
@@ -119,7 +209,73 @@ public final class CottonHud {
      * @param positioner the positioner
      */
     public static void setPositioner(WWidget widget, Positioner positioner) {
-        positioners.put(widget, positioner);
+        Layer layer = getOrCreateLayer(widget);
+        layer.positioner = positioner;
+        layer.positionDirty = true;
+    }
+
+    /**
+     * Sets the z-index of the widget. Widgets with higher z-indices are painted on
+     * top of widgets with lower ones. The default z-index is 0.
+     *
+     * @param widget the widget
+     * @param zIndex the z-index
+     */
+    public static void setZIndex(WWidget widget, int zIndex) {
+        Layer layer = getOrCreateLayer(widget);
+        if (layer.zIndex != zIndex) {
+            layer.zIndex = zIndex;
+            orderDirty = true;
+        }
+    }
+
+    /**
+     * Sets how often the content of the widget and its {@link Refreshable}
+     * descendants is refreshed. Between refreshes, they paint their cached
+     * content.
+     *
+     * @param widget             the widget
+     * @param refreshesPerSecond the refresh rate in Hz, or 0 to never refresh the
+     *                           widget from the HUD
+     */
+    public static void setRefreshRate(WWidget widget, int refreshesPerSecond) {
+        if (refreshesPerSecond < 0)
+            throw new IllegalArgumentException("Refresh rate must not be negative: " + refreshesPerSecond);
+
+        Layer layer = getOrCreateLayer(widget);
+        boolean wasRefreshing = layer.refreshIntervalNanos > 0;
+        layer.refreshIntervalNanos = refreshesPerSecond == 0 ? 0 : 1_000_000_000L / refreshesPerSecond;
+        // Refresh on the next frame
+        layer.lastRefresh = System.nanoTime() - layer.refreshIntervalNanos;
+        if (wasRefreshing && refreshesPerSecond == 0)
+            stopRefreshing(widget);
+    }
+
+    /**
+     * Makes all positioners run again on the next frame.
+     */
+    public static void invalidatePositions() {
+        lastHudWidth = -1;
+        lastHudHeight = -1;
+    }
+
+    /**
+     * {@return the widgets on the HUD in paint order}
+     */
+    public static List<WWidget> getWidgets() {
+        Layer[] sorted = getSortedLayers();
+        List<WWidget> result = new ArrayList<>(sorted.length);
+        for (Layer layer : sorted) {
+            result.add(layer.widget);
+        }
+        return result;
+    }
+
+    /**
+     * {@return the statistics of the last painted HUD frame}
+     */
+    public static FrameStats getLastFrameStats() {
+        return lastFrameStats;
     }
 
     /**
@@ -128,7 +284,61 @@ public final class CottonHud {
      * @param widget the widget
      */
     public static void remove(WWidget widget) {
-        widgets.remove(widget);
+        Layer layer = layers.remove(widget);
+        if (layer != null && layer.added)
+            orderDirty = true;
+        if (layer != null && layer.refreshIntervalNanos > 0)
+            stopRefreshing(widget);
+    }
+
+    /**
+     * A widget whose content is computed separately from painting, such as a text
+     * readout. When a HUD widget has a refresh rate, {@link #refresh()} is called
+     * at that rate, and the widget paints the content computed by the last
+     * refresh in between.
+     */
+    @FunctionalInterface
+    public interface Refreshable {
+        /**
+         * Recomputes the content of this widget.
+         */
+        void refresh();
+
+        /**
+         * Called when the HUD stops refreshing this widget, because its refresh
+         * rate was set to 0 or it was removed. The widget should drop the content
+         * of the last refresh and compute its content while painting again.
+         */
+        default void stopRefreshing() {
+        }
+    }
+
+    /**
+     * The statistics of a painted HUD frame.
+     *
+     * @param layers       the number of painted layers
+     * @param repositioned the number of layers whose positioner ran
+     * @param refreshed    the number of layers that were refreshed
+     * @param nanos        the time spent painting the HUD, in nanoseconds
+     */
+    public record FrameStats(int layers, int repositioned, int refreshed, long nanos) {
+    }
+
+    private static final class Layer {
+        final WWidget widget;
+        Positioner positioner = null;
+        boolean added = false;
+        long sequence = 0;
+        int zIndex = 0;
+        boolean positionDirty = true;
+        int positionedWidth = -1;
+        int positionedHeight = -1;
+        long refreshIntervalNanos = 0;
+        long lastRefresh = 0;
+
+        Layer(WWidget widget) {
+            this.widget = widget;
+        }
     }
 
     /**
@@ -6,6 +6,7 @@ package dev.tr7zw.trender.gui.client;
 
 import dev.tr7zw.trender.gui.GuiDescription;
 import dev.tr7zw.trender.gui.SyncedGuiDescription;
+import dev.tr7zw.trender.gui.impl.ScreenNetworkingImpl;
 import dev.tr7zw.trender.gui.impl.VisualLogger;
 import dev.tr7zw.trender.gui.impl.client.CottonScreenImpl;
 //#if MC >= 11904
@@ -13,6 +14,11 @@ import dev.tr7zw.trender.gui.impl.client.FocusElements;
 //#endif
 import dev.tr7zw.trender.gui.impl.client.MouseInputHandler;
 import dev.tr7zw.trender.gui.impl.client.NarrationHelper;
+import dev.tr7zw.trender.gui.impl.client.RenderDiagnostics;
+import dev.tr7zw.trender.gui.impl.client.WidgetProfiler;
+import dev.tr7zw.trender.gui.impl.jfr.GuiEvents;
+import dev.tr7zw.trender.gui.impl.jfr.PaintFrameEvent;
+import dev.tr7zw.trender.gui.impl.jfr.ScreenLifecycleEvent;
 import dev.tr7zw.trender.gui.impl.mixin.client.ScreenAccessor;
 import dev.tr7zw.trender.gui.widget.WPanel;
 import dev.tr7zw.trender.gui.widget.WWidget;
@@ -27,6 +33,8 @@ import net.minecraft.client.gui.screens.inventory.AbstractContainerScreen;
 import net.minecraft.network.chat.Component;
 import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.inventory.ClickType;
+import net.minecraft.world.inventory.Slot;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 import org.lwjgl.opengl.GL11;
@@ -127,6 +135,7 @@ public class CottonInventoryScreen<T extends SyncedGuiDescription> extends Abstr
         description.addPainters();
 
         reposition(width, height);
+        ScreenLifecycleEvent.emit("init", this, description);
 
         //#if MC >= 11904
         if (root != null) {
@@ -143,6 +152,8 @@ public class CottonInventoryScreen<T extends SyncedGuiDescription> extends Abstr
     public void removed() {
         super.removed();
         VisualLogger.reset();
+        WidgetProfiler.reset();
+        ScreenLifecycleEvent.emit("removed", this, description);
     }
 
     @ApiStatus.Internal
@@ -162,13 +173,6 @@ public class CottonInventoryScreen<T extends SyncedGuiDescription> extends Abstr
         this.lastResponder = lastResponder;
     }
 
-    /**
-     * Clears the heavyweight peers of this screen's GUI description.
-     */
-    private void clearPeers() {
-        description.slots.clear();
-    }
-
     /**
      * Repositions the root panel.
      *
@@ -178,8 +182,8 @@ public class CottonInventoryScreen<T extends SyncedGuiDescription> extends Abstr
     protected void reposition(int screenWidth, int screenHeight) {
         WPanel basePanel = description.getRootPanel();
         if (basePanel != null) {
-            clearPeers();
-            basePanel.validate(description);
+            // Keeps the slot peers when only the position changed
+            description.revalidateKeepingSlotPeers();
 
             imageWidth = basePanel.getWidth();
             imageHeight = basePanel.getHeight();
@@ -328,7 +332,18 @@ public class CottonInventoryScreen<T extends SyncedGuiDescription> extends Abstr
             if (root != null) {
                 GL11.glEnable(GL11.GL_SCISSOR_TEST);
                 Scissors.refreshScissors();
+                RenderDiagnostics.beginFrame();
+                PaintFrameEvent event = new PaintFrameEvent();
+                event.begin();
+                int token = WidgetProfiler.begin(root, WidgetProfiler.Phase.PAINT);
                 root.paint(context, leftPos, topPos, mouseX - leftPos, mouseY - topPos);
+                WidgetProfiler.end(token);
+                event.end();
+                if (event.shouldCommit()) {
+                    event.screenClass = getClass().getName();
+                    event.subtreeSize = GuiEvents.countWidgets(root);
+                    event.commit();
+                }
                 GL11.glDisable(GL11.GL_SCISSOR_TEST);
                 Scissors.checkStackIsEmpty();
             }
@@ -360,6 +375,8 @@ public class CottonInventoryScreen<T extends SyncedGuiDescription> extends Abstr
 
         renderTooltip(context, mouseX, mouseY); //Draws the itemstack tooltips
         VisualLogger.render(renderContext);
+        WidgetProfiler.render(renderContext);
+        RenderDiagnostics.render(renderContext);
     }
 
     @Override
@@ -381,6 +398,15 @@ public class CottonInventoryScreen<T extends SyncedGuiDescription> extends Abstr
         // Don't draw the player inventory label as it's drawn by the widget itself
     }
 
+    @Override
+    protected void slotClicked(Slot slot, int slotId, int button, ClickType type) {
+        if (description != null) {
+            description.getSlotPrediction().predict(() -> super.slotClicked(slot, slotId, button, type));
+        } else {
+            super.slotClicked(slot, slotId, button, type);
+        }
+    }
+
     @Override
     //#if MC >= 11700
     protected void containerTick() {
@@ -390,9 +416,14 @@ public class CottonInventoryScreen<T extends SyncedGuiDescription> extends Abstr
         //$$ super.tick();
         //#endif
         if (description != null) {
+            description.dispatchSlotChanges();
+            description.getSlotPrediction().tick();
+            ScreenNetworkingImpl.flush(description);
             WPanel root = description.getRootPanel();
             if (root != null) {
+                int token = WidgetProfiler.begin(root, WidgetProfiler.Phase.TICK);
                 root.tick();
+                WidgetProfiler.end(token);
             }
         }
     }
@@ -0,0 +1,244 @@
+package dev.tr7zw.trender.gui.client;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import dev.tr7zw.trender.gui.GuiDescription;
+import dev.tr7zw.trender.gui.widget.WPanel;
+import dev.tr7zw.trender.gui.widget.WWidget;
+import net.minecraft.Util;
+import net.minecraft.client.Minecraft;
+
+/**
+ * A keyed pool of client-side GUI descriptions that can be built ahead of time
+ * and reused.
+ *
+ * <p>
+ * Building a description constructs its widget tree and validates its root
+ * panel. {@link #prebuild(Object)} only runs the constructor off the render
+ * thread; validation lays out the widgets, which measures text with the
+ * client's font and records into the widget profiler, so it's always done on
+ * the render thread. The constructor must therefore only create and configure
+ * widgets: it must not measure or draw text, call {@code validate} or
+ * {@code layout}, or access the world. Painters and focus elements are still
+ * set up by the screen on the render thread.
+ *
+ * <p>
+ * Descriptions that are {@linkplain #release released} back into the pool are
+ * reset and handed out again by {@link #acquire(Object)}, which saves the
+ * build time of screens that are reopened often:
+ *
+ * <pre>
+ * {@code
+ * static final GuiDescriptionPool<String, MachineGui> POOL = new GuiDescriptionPool<>(MachineGui::new,
+ *         MachineGui::resetState, 2);
+ *
+ * MachineGui gui = POOL.acquire("furnace");
+ * Minecraft.getInstance().setScreen(new CottonClientScreen(gui) {
+ *     public void removed() {
+ *         super.removed();
+ *         POOL.release("furnace", gui);
+ *     }
+ * });
+ * }
+ * </pre>
+ *
+ * <p>
+ * Only descriptions that aren't bound to a menu can be pooled; a
+ * {@link dev.tr7zw.trender.gui.SyncedGuiDescription SyncedGuiDescription} is
+ * tied to its container and sync ID.
+ *
+ * @param <K> the key type
+ * @param <D> the description type
+ */
+public final class GuiDescriptionPool<K, D extends GuiDescription> {
+    private final Function<K, D> factory;
+    private final Consumer<D> reset;
+    private final int maxPerKey;
+    private final Map<K, Deque<D>> pooled = new HashMap<>();
+    private long hits = 0;
+    private long misses = 0;
+    private long prebuilt = 0;
+    private long builds = 0;
+    private long buildNanos = 0;
+    private long savedNanos = 0;
+
+    /**
+     * Constructs a pool.
+     *
+     * @param factory   the description factory, which may be called on a
+     *                  background thread and must not lay out widgets
+     * @param reset     resets the state of a released description before it's
+     *                  reused, called on the thread that acquires it
+     * @param maxPerKey the maximum number of pooled descriptions per key
+     */
+    public GuiDescriptionPool(Function<K, D> factory, Consumer<D> reset, int maxPerKey) {
+        if (maxPerKey < 1)
+            throw new IllegalArgumentException("Pool size must be positive: " + maxPerKey);
+        this.factory = Objects.requireNonNull(factory, "factory");
+        this.reset = Objects.requireNonNull(reset, "reset");
+        this.maxPerKey = maxPerKey;
+    }
+
+    /**
+     * Gets a pooled description, or builds a new one if none is pooled for the
+     * key. Pooled descriptions are reset before they're returned. Must be called
+     * on the render thread.
+     *
+     * @param key the key
+     * @return the description
+     */
+    public D acquire(K key) {
+        D description;
+        synchronized (this) {
+            Deque<D> queue = pooled.get(key);
+            description = queue != null ? queue.pollFirst() : null;
+            if (description != null) {
+                hits++;
+                savedNanos += getAverageBuildNanos();
+            } else {
+                misses++;
+            }
+        }
+
+        if (description == null)
+            return build(key);
+
+        WWidget focus = description.getFocus();
+        if (focus != null)
+            description.releaseFocus(focus);
+        reset.accept(description);
+        return description;
+    }
+
+    /**
+     * Returns a description to the pool. If the pool for the key is full, the
+     * description is dropped.
+     *
+     * @param key         the key
+     * @param description the description, which must not be used afterwards
+     */
+    public void release(K key, D description) {
+        Objects.requireNonNull(description, "description");
+        synchronized (this) {
+            Deque<D> queue = pooled.computeIfAbsent(key, k -> new ArrayDeque<>());
+            if (queue.size() < maxPerKey && !queue.contains(description))
+                queue.addLast(description);
+        }
+    }
+
+    /**
+     * Constructs a description on the background executor, then validates it on
+     * the render thread and adds it to the pool.
+     *
+     * @param key the key
+     * @return a future that completes when the description is pooled
+     */
+    public CompletableFuture<Void> prebuild(K key) {
+        return prebuild(key, Util.backgroundExecutor());
+    }
+
+    /**
+     * Constructs a description on an executor, then validates it on the render
+     * thread and adds it to the pool.
+     *
+     * @param key      the key
+     * @param executor the executor that constructs the description
+     * @return a future that completes when the description is pooled
+     */
+    public CompletableFuture<Void> prebuild(K key, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            D description = factory.apply(key);
+            return new Constructed<>(description, System.nanoTime() - start);
+        }, executor).thenAcceptAsync(constructed -> {
+            validate(constructed.description(), constructed.nanos());
+            synchronized (this) {
+                prebuilt++;
+            }
+            release(key, constructed.description());
+        }, Minecraft.getInstance());
+    }
+
+    private D build(K key) {
+        long start = System.nanoTime();
+        D description = factory.apply(key);
+        validate(description, System.nanoTime() - start);
+        return description;
+    }
+
+    private void validate(D description, long constructionNanos) {
+        long start = System.nanoTime();
+        WPanel root = description.getRootPanel();
+        if (root != null)
+            root.validate(description);
+        long elapsed = constructionNanos + System.nanoTime() - start;
+        synchronized (this) {
+            builds++;
+            buildNanos += elapsed;
+        }
+    }
+
+    private record Constructed<D>(D description, long nanos) {
+    }
+
+    /**
+     * Drops all pooled descriptions.
+     */
+    public synchronized void clear() {
+        pooled.clear();
+    }
+
+    /**
+     * {@return the number of pooled descriptions for a key}
+     *
+     * @param key the key
+     */
+    public synchronized int getPooledCount(K key) {
+        Deque<D> queue = pooled.get(key);
+        return queue != null ? queue.size() : 0;
+    }
+
+    /**
+     * {@return the number of acquisitions that reused a pooled description}
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * {@return the number of acquisitions that had to build a description}
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * {@return the number of descriptions built by {@link #prebuild}}
+     */
+    public synchronized long getPrebuilt() {
+        return prebuilt;
+    }
+
+    /**
+     * {@return the average time to build a description, in nanoseconds}
+     */
+    public synchronized long getAverageBuildNanos() {
+        return builds == 0 ? 0 : buildNanos / builds;
+    }
+
+    /**
+     * {@return the estimated build time saved by reusing pooled descriptions, in
+     * nanoseconds}
+     */
+    public synchronized long getSavedNanos() {
+        return savedNanos;
+    }
+}
@@ -12,6 +12,7 @@ import org.jetbrains.annotations.Nullable;
 //$$import net.minecraft.client.renderer.MultiBufferSource.BufferSource;
 //#endif
 
+import dev.tr7zw.trender.gui.impl.client.RenderDiagnostics;
 import it.unimi.dsi.fastutil.ints.IntIterator;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -108,6 +109,7 @@ public class RenderContext implements PoseStackHelper {
 
     public void blit(ResourceLocation atlasLocation, int x, int y, float uOffset, float vOffset, int width, int height,
             int textureWidth, int textureHeight) {
+        RenderDiagnostics.draw(atlasLocation, x, y, width, height);
         //#if MC >= 12106
         guiGraphics.blit(RenderPipelines.GUI_TEXTURED, atlasLocation, x, y, uOffset, vOffset, width, height,
                 textureWidth, textureHeight);
@@ -135,6 +137,7 @@ public class RenderContext implements PoseStackHelper {
 
     public void blit(ResourceLocation atlasLocation, int x, int y, int blitOffset, float uOffset, float vOffset,
             int uWidth, int vHeight, int textureWidth, int textureHeight) {
+        RenderDiagnostics.draw(atlasLocation, x, y, uWidth, vHeight);
         //#if MC >= 12106
         //TODO blitOffset?
         guiGraphics.blit(RenderPipelines.GUI_TEXTURED, atlasLocation, x, y, uOffset, vOffset, uWidth, vHeight,
@@ -159,10 +162,13 @@ public class RenderContext implements PoseStackHelper {
     public void blitSprite(ResourceLocation texture, int x, int y, int width, int height, int sliceSide, int sliceTop,
             int txtWidth, int txtHeight) {
         //#if MC >= 12106
+        RenderDiagnostics.draw(RenderDiagnostics.GUI_SPRITES, x, y, width, height);
         guiGraphics.blitSprite(RenderPipelines.GUI_TEXTURED, texture, x, y, width, height);
         //#elseif MC >= 12102
+        //$$ RenderDiagnostics.draw(RenderDiagnostics.GUI_SPRITES, x, y, width, height);
         //$$ guiGraphics.blitSprite(t -> RenderType.guiTextured(t), texture, x, y, width, height);
         //#elseif MC >= 12002
+        //$$ RenderDiagnostics.draw(RenderDiagnostics.GUI_SPRITES, x, y, width, height);
         //$$ guiGraphics.blitSprite(texture, x, y, width, height);
         //#else
         //$$ blitNineSliced(texture, x, y, width, height, sliceSide, sliceTop, sliceSide, sliceTop, txtWidth, txtHeight, txtWidth, txtHeight);
@@ -309,6 +315,7 @@ public class RenderContext implements PoseStackHelper {
     }
 
     public void blitSprite(ResourceLocation texture, int x, int y, int width, int height, int color) {
+        RenderDiagnostics.draw(RenderDiagnostics.GUI_SPRITES, x, y, width, height);
         //#if MC >= 12106
         guiGraphics.blitSprite(RenderPipelines.GUI_TEXTURED, texture, x, y, width, height, color);
         //#elseif MC >= 12102
@@ -341,6 +348,7 @@ public class RenderContext implements PoseStackHelper {
     }
 
     public void fill(int minX, int minY, int maxX, int maxY, int color) {
+        RenderDiagnostics.draw(RenderDiagnostics.UNTEXTURED, minX, minY, maxX - minX, maxY - minY);
         //#if MC >= 12000
         guiGraphics.fill(minX, minY, maxX, maxY, color);
         //#else
@@ -349,6 +357,7 @@ public class RenderContext implements PoseStackHelper {
     }
 
     public void invertedRect(int x, int y, int width, int height) {
+        RenderDiagnostics.draw(RenderDiagnostics.UNTEXTURED, x, y, width, height);
         //#if MC >= 12106
         guiGraphics.fill(RenderPipelines.GUI_TEXT_HIGHLIGHT, x, y, x + width, y + height, -16776961);
         //#elseif MC >= 12105
@@ -413,6 +422,7 @@ public class RenderContext implements PoseStackHelper {
     }
 
     public void renderFakeItem(ItemStack itemStack, int x, int y) {
+        RenderDiagnostics.draw(RenderDiagnostics.ITEMS, x, y, 16, 16);
         //#if MC >= 12000
         guiGraphics.renderFakeItem(itemStack, x, y);
         //#elseif MC > 11903
@@ -423,6 +433,7 @@ public class RenderContext implements PoseStackHelper {
     }
 
     public void renderItemDecorations(Font font, ItemStack itemStack, int x, int y) {
+        RenderDiagnostics.draw(RenderDiagnostics.ITEMS, x, y, 16, 16);
         //#if MC >= 12000
         guiGraphics.renderItemDecorations(font, itemStack, x, y);
         //#elseif MC > 11903
@@ -433,6 +444,7 @@ public class RenderContext implements PoseStackHelper {
     }
 
     public void renderItem(Player player, ItemStack itemStack, int x, int y, int seed) {
+        RenderDiagnostics.draw(RenderDiagnostics.ITEMS, x, y, 16, 16);
         //#if MC >= 12000
         guiGraphics.renderItem(player, itemStack, x, y, seed);
         //#elseif MC > 11903
@@ -445,6 +457,8 @@ public class RenderContext implements PoseStackHelper {
     }
 
     public void drawString(Font font, Component name, int x, int y, int color) {
+        if (RenderDiagnostics.isEnabled())
+            RenderDiagnostics.draw(RenderDiagnostics.TEXT, x, y, font.width(name), font.lineHeight);
         //#if MC >= 12000
         guiGraphics.drawString(font, name, x, y, color);
         //#else
@@ -453,6 +467,9 @@ public class RenderContext implements PoseStackHelper {
     }
 
     public void drawCenteredString(Font font, Component name, int x, int y, int color) {
+        if (RenderDiagnostics.isEnabled())
+            RenderDiagnostics.draw(RenderDiagnostics.TEXT, x - font.width(name) / 2, y, font.width(name),
+                    font.lineHeight);
         //#if MC >= 12000
         guiGraphics.drawCenteredString(font, name, x, y, color);
         //#else
@@ -461,6 +478,8 @@ public class RenderContext implements PoseStackHelper {
     }
 
     public void drawString(Font textRenderer, String s, int x, int y, int color, boolean dropShadow) {
+        if (RenderDiagnostics.isEnabled())
+            RenderDiagnostics.draw(RenderDiagnostics.TEXT, x, y, textRenderer.width(s), textRenderer.lineHeight);
         //#if MC >= 12000
         guiGraphics.drawString(textRenderer, s, x, y, color, dropShadow);
         //#else
@@ -469,6 +488,8 @@ public class RenderContext implements PoseStackHelper {
     }
 
     public void drawString(Font textRenderer, FormattedCharSequence text, int x, int y, int color, boolean dropShadow) {
+        if (RenderDiagnostics.isEnabled())
+            RenderDiagnostics.draw(RenderDiagnostics.TEXT, x, y, textRenderer.width(text), textRenderer.lineHeight);
         //#if MC >= 12000
         guiGraphics.drawString(textRenderer, text, x, y, color, dropShadow);
         //#else
@@ -482,6 +503,9 @@ public class RenderContext implements PoseStackHelper {
 
     public void drawString(Font textRenderer, @Nullable Component suggestion, int x, int y, int suggestionColor,
             boolean b) {
+        if (RenderDiagnostics.isEnabled() && suggestion != null)
+            RenderDiagnostics.draw(RenderDiagnostics.TEXT, x, y, textRenderer.width(suggestion),
+                    textRenderer.lineHeight);
         //#if MC >= 12000
         guiGraphics.drawString(textRenderer, suggestion, x, y, suggestionColor, b);
         //#else
@@ -498,6 +522,7 @@ public class RenderContext implements PoseStackHelper {
     }
 
     public void flush() {
+        RenderDiagnostics.flush();
         //#if MC <= 12105
         //#if MC >= 12000
         //$$ guiGraphics.flush();
@@ -6,6 +6,8 @@ import java.util.stream.Collectors;
 import org.jetbrains.annotations.Nullable;
 import org.lwjgl.opengl.GL11;
 
+import dev.tr7zw.trender.gui.impl.client.RenderDiagnostics;
+import dev.tr7zw.trender.gui.impl.jfr.ScissorEvent;
 import net.minecraft.client.Minecraft;
 
 /**
@@ -52,6 +54,7 @@ public final class Scissors {
         if (context != null)
             context.flush();
         refreshScissors();
+        ScissorEvent.emit("push", STACK.size(), width, height);
 
         return frame;
     }
@@ -70,6 +73,7 @@ public final class Scissors {
         if (frame.context != null)
             frame.context.flush();
         refreshScissors();
+        ScissorEvent.emit("pop", STACK.size(), frame.width, frame.height);
     }
 
     static void refreshScissors() {
@@ -78,6 +82,7 @@ public final class Scissors {
         if (STACK.isEmpty()) {
             // Just use the full window framebuffer as a scissor
             GL11.glScissor(0, 0, mc.getWindow().getWidth(), mc.getWindow().getHeight());
+            RenderDiagnostics.scissor(0, 0, -1, -1);
             return;
         }
 
@@ -108,6 +113,7 @@ public final class Scissors {
 
         // Expression for Y coordinate adapted from vini2003's Spinnery (code snippet released under WTFPL)
         GL11.glScissor((int) (x * scale), (int) (windowHeight - (y * scale) - scaledHeight), scaledWidth, scaledHeight);
+        RenderDiagnostics.scissor(x, y, width, height);
     }
 
     /**
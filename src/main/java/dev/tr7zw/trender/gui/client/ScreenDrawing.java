@@ -2,6 +2,7 @@ package dev.tr7zw.trender.gui.client;
 
 import org.jetbrains.annotations.Nullable;
 //#if MC < 12106
+//$$ import dev.tr7zw.trender.gui.impl.client.RenderDiagnostics;
 //$$ import net.minecraft.client.renderer.RenderType;
 //#if MC >= 11904
 //$$ import org.joml.Matrix4f;
@@ -208,6 +209,9 @@ public class ScreenDrawing {
             width = 1;
         if (height <= 0)
             height = 1;
+        //#if MC < 12106
+        //$$ RenderDiagnostics.draw(texture, x, y, width, height);
+        //#endif
         //#if MC >= 12106
         float a = (color >> 24 & 255) / 255.0F;
         color = colorAtOpacity(color, a * opacity);
@@ -306,6 +310,120 @@ public class ScreenDrawing {
         //#endif
     }
 
+    /**
+     * Draws multiple textured rectangles from the same texture in a single batch.
+     *
+     * <p>
+     * The quads are stored as consecutive groups of eight floats: the x, y, width
+     * and height of the rectangle relative to the origin, followed by its u1, v1,
+     * u2 and v2 texture coordinates. Use this instead of calling
+     * {@link #texturedRect} in a loop, which submits one draw per rectangle on
+     * older versions.
+     *
+     * @param context       the draw context
+     * @param x             the x coordinate of the origin on-screen
+     * @param y             the y coordinate of the origin on-screen
+     * @param texture       the Identifier for the texture
+     * @param quads         the packed quad data
+     * @param color         a color to tint the texture. This can be transparent!
+     *                      Use 0xFF_FFFFFF if you don't want a color tint
+     * @param textureWidth  the width of the whole texture in pixels
+     * @param textureHeight the height of the whole texture in pixels
+     */
+    public static void texturedQuads(RenderContext context, int x, int y, ResourceLocation texture, float[] quads,
+            int color, int textureWidth, int textureHeight) {
+        if (quads.length == 0)
+            return;
+        //#if MC < 12106
+        //$$ RenderDiagnostics.drawQuads(texture, x, y, quads);
+        //#endif
+        //#if MC >= 12106
+        // Consecutive blits with the same texture are merged into one draw by the gui renderer
+        for (int i = 0; i < quads.length; i += 8) {
+            context.blit(texture, x + (int) quads[i], y + (int) quads[i + 1], textureWidth * quads[i + 4],
+                    textureHeight * quads[i + 5], (int) quads[i + 2], (int) quads[i + 3], textureWidth, textureHeight);
+        }
+        //#elseif MC >= 12103
+        //$$ Matrix4f model = context.getPose().last().pose();
+        //$$ var buffer = context.getVertexConsumers().getBuffer(RenderType.guiTextured(texture));
+        //$$ for (int i = 0; i < quads.length; i += 8) {
+        //$$     float qx = x + quads[i], qy = y + quads[i + 1], qx2 = qx + quads[i + 2], qy2 = qy + quads[i + 3];
+        //$$     buffer.addVertex(model, qx, qy2, 0).setUv(quads[i + 4], quads[i + 7]).setColor(color);
+        //$$     buffer.addVertex(model, qx2, qy2, 0).setUv(quads[i + 6], quads[i + 7]).setColor(color);
+        //$$     buffer.addVertex(model, qx2, qy, 0).setUv(quads[i + 6], quads[i + 5]).setColor(color);
+        //$$     buffer.addVertex(model, qx, qy, 0).setUv(quads[i + 4], quads[i + 5]).setColor(color);
+        //$$ }
+        //#elseif MC >= 12100
+        //$$ float r = (color >> 16 & 255) / 255.0F;
+        //$$ float g = (color >> 8 & 255) / 255.0F;
+        //$$ float b = (color & 255) / 255.0F;
+        //$$ float a = (color >> 24 & 255) / 255.0F;
+        //$$ Matrix4f model = context.getPose().last().pose();
+        //$$ RenderSystem.enableBlend();
+        //$$ RenderSystem.setShaderTexture(0, texture);
+        //$$ RenderSystem.setShaderColor(r, g, b, a);
+        //$$ RenderSystem.setShader(GameRenderer::getPositionTexShader);
+        //$$ BufferBuilder buffer = Tesselator.getInstance().begin(VertexFormat.Mode.QUADS, DefaultVertexFormat.POSITION_TEX);
+        //$$ for (int i = 0; i < quads.length; i += 8) {
+        //$$     float qx = x + quads[i], qy = y + quads[i + 1], qx2 = qx + quads[i + 2], qy2 = qy + quads[i + 3];
+        //$$     buffer.addVertex(model, qx,  qy2, 0).setUv(quads[i + 4], quads[i + 7]);
+        //$$     buffer.addVertex(model, qx2, qy2, 0).setUv(quads[i + 6], quads[i + 7]);
+        //$$     buffer.addVertex(model, qx2, qy,  0).setUv(quads[i + 6], quads[i + 5]);
+        //$$     buffer.addVertex(model, qx,  qy,  0).setUv(quads[i + 4], quads[i + 5]);
+        //$$ }
+        //$$ BufferUploader.drawWithShader(buffer.build());
+        //$$ RenderSystem.disableBlend();
+        //$$ RenderSystem.setShaderColor(1, 1, 1, 1);
+        //#elseif MC >= 11700
+        //$$ float r = (color >> 16 & 255) / 255.0F;
+        //$$ float g = (color >> 8 & 255) / 255.0F;
+        //$$ float b = (color & 255) / 255.0F;
+        //$$ float a = (color >> 24 & 255) / 255.0F;
+        //$$ Matrix4f model = context.getPose().last().pose();
+        //$$ RenderSystem.enableBlend();
+        //$$ RenderSystem.setShaderTexture(0, texture);
+        //$$ RenderSystem.setShaderColor(r, g, b, a);
+        //$$ RenderSystem.setShader(GameRenderer::getPositionTexShader);
+        //$$ BufferBuilder buffer = Tesselator.getInstance().getBuilder();
+        //$$ buffer.begin(VertexFormat.Mode.QUADS, DefaultVertexFormat.POSITION_TEX);
+        //$$ for (int i = 0; i < quads.length; i += 8) {
+        //$$     float qx = x + quads[i], qy = y + quads[i + 1], qx2 = qx + quads[i + 2], qy2 = qy + quads[i + 3];
+        //$$     buffer.vertex(model, qx,  qy2, 0).uv(quads[i + 4], quads[i + 7]).endVertex();
+        //$$     buffer.vertex(model, qx2, qy2, 0).uv(quads[i + 6], quads[i + 7]).endVertex();
+        //$$     buffer.vertex(model, qx2, qy,  0).uv(quads[i + 6], quads[i + 5]).endVertex();
+        //$$     buffer.vertex(model, qx,  qy,  0).uv(quads[i + 4], quads[i + 5]).endVertex();
+        //$$ }
+        //#if MC >= 11900
+        //$$ BufferUploader.drawWithShader(buffer.end());
+        //#else
+        //$$ buffer.end();
+        //$$ BufferUploader.end(buffer);
+        //#endif
+        //$$ RenderSystem.disableBlend();
+        //$$ RenderSystem.setShaderColor(1, 1, 1, 1);
+        //#else
+        //$$Minecraft.getInstance().getTextureManager().bind(texture);
+        //$$float r = (color >> 16 & 255) / 255.0F;
+        //$$float g = (color >> 8 & 255) / 255.0F;
+        //$$float b = (color & 255) / 255.0F;
+        //$$float a = (color >> 24 & 255) / 255.0F;
+        //$$Tesselator tessellator = Tesselator.getInstance();
+        //$$BufferBuilder buffer = tessellator.getBuilder();
+        //$$RenderSystem.enableBlend();
+        //$$RenderSystem.blendFuncSeparate(GlStateManager.SourceFactor.SRC_ALPHA, GlStateManager.DestFactor.ONE_MINUS_SRC_ALPHA, GlStateManager.SourceFactor.ONE, GlStateManager.DestFactor.ZERO);
+        //$$buffer.begin(GL11.GL_QUADS, DefaultVertexFormat.POSITION_COLOR_TEX);
+        //$$for (int i = 0; i < quads.length; i += 8) {
+        //$$    float qx = x + quads[i], qy = y + quads[i + 1], qx2 = qx + quads[i + 2], qy2 = qy + quads[i + 3];
+        //$$    buffer.vertex(qx,  qy2, 0).color(r, g, b, a).uv(quads[i + 4], quads[i + 7]).endVertex();
+        //$$    buffer.vertex(qx2, qy2, 0).color(r, g, b, a).uv(quads[i + 6], quads[i + 7]).endVertex();
+        //$$    buffer.vertex(qx2, qy,  0).color(r, g, b, a).uv(quads[i + 6], quads[i + 5]).endVertex();
+        //$$    buffer.vertex(qx,  qy,  0).color(r, g, b, a).uv(quads[i + 4], quads[i + 5]).endVertex();
+        //$$}
+        //$$tessellator.end();
+        //$$RenderSystem.disableBlend();
+        //#endif
+    }
+
     /**
      * Draws an untextured rectangle of the specified RGB color.
      */
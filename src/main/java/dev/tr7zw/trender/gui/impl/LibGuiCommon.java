@@ -21,6 +21,6 @@ public final class LibGuiCommon
     @Override
     //#endif
     public void onInitialize() {
-
+        ScreenNetworkingImpl.init();
     }
 }
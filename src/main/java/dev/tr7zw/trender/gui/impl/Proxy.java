@@ -1,10 +1,18 @@
 package dev.tr7zw.trender.gui.impl;
 
+import org.jetbrains.annotations.Nullable;
+
 import dev.tr7zw.trender.gui.widget.WWidget;
+import net.minecraft.world.entity.player.Player;
 
 public class Proxy {
     public static Proxy proxy = new Proxy();
 
     public void addPainters(WWidget widget) {
     }
+
+    @Nullable
+    public Player getClientPlayer() {
+        return null;
+    }
 }
@@ -1,184 +1,684 @@
-//package dev.tr7zw.trender.gui.impl;
-//
-//import java.util.HashMap;
-//import java.util.Map;
-//import java.util.Objects;
-//import java.util.WeakHashMap;
-//import java.util.concurrent.Executor;
-//
-//import org.slf4j.Logger;
-//import org.slf4j.LoggerFactory;
-//
-//import com.mojang.serialization.DataResult;
-//import com.mojang.serialization.Decoder;
-//import com.mojang.serialization.Encoder;
-//import com.mojang.serialization.Lifecycle;
-//
-//import dev.tr7zw.trender.gui.SyncedGuiDescription;
-//import dev.tr7zw.trender.gui.networking.NetworkSide;
-//import dev.tr7zw.trender.gui.networking.ScreenNetworking;
-//import net.minecraft.core.RegistryAccess;
-//import net.minecraft.nbt.NbtAccounter;
-//import net.minecraft.nbt.NbtOps;
-//import net.minecraft.nbt.Tag;
-//import net.minecraft.network.RegistryFriendlyByteBuf;
-//import net.minecraft.network.codec.ByteBufCodecs;
-//import net.minecraft.network.codec.StreamCodec;
-//import net.minecraft.network.protocol.common.ClientboundCustomPayloadPacket;
-//import net.minecraft.network.protocol.common.ServerboundCustomPayloadPacket;
-//import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
-//import net.minecraft.resources.RegistryOps;
-//import net.minecraft.resources.ResourceLocation;
-//import net.minecraft.world.entity.player.Player;
-//import net.minecraft.world.inventory.AbstractContainerMenu;
-//
-//public class ScreenNetworkingImpl implements ScreenNetworking {
-//    // Matches the one used in PacketCodecs.codec() etc
-//    private static final long MAX_NBT_SIZE = 0x200000L;
-//
-//    public record ScreenMessage(int syncId, ResourceLocation message, Tag nbt) implements CustomPacketPayload {
-//
-//        public static final Type<ScreenMessage> ID = new Type<>(LibGuiCommon.id("screen_message"));
-//        public static final StreamCodec<RegistryFriendlyByteBuf, ScreenMessage> CODEC = StreamCodec.composite(
-//                ByteBufCodecs.INT, ScreenMessage::syncId, ResourceLocation.STREAM_CODEC, ScreenMessage::message,
-//                ByteBufCodecs.tagCodec(() -> NbtAccounter.create(MAX_NBT_SIZE)), ScreenMessage::nbt,
-//                ScreenMessage::new);
-//
-//        @Override
-//        public Type<? extends CustomPacketPayload> type() {
-//            return ID;
-//        }
-//    }
-//
-//    private static final Logger LOGGER = LoggerFactory.getLogger(ScreenNetworkingImpl.class);
-//    private static final Map<SyncedGuiDescription, ScreenNetworkingImpl> instanceCache = new WeakHashMap<>();
-//
-//    private final Map<ResourceLocation, ReceiverData<?>> receivers = new HashMap<>();
-//    private final SyncedGuiDescription description;
-//    private final NetworkSide side;
-//
-//    private ScreenNetworkingImpl(SyncedGuiDescription description, NetworkSide side) {
-//        this.description = description;
-//        this.side = side;
-//    }
-//
-//    private static RegistryOps<Tag> getRegistryOps(RegistryAccess registryManager) {
-//        return registryManager.createSerializationContext(NbtOps.INSTANCE);
-//    }
-//
-//    @Override
-//    public <D> void receive(ResourceLocation message, Decoder<D> decoder, MessageReceiver<D> receiver) {
-//        Objects.requireNonNull(message, "message");
-//        Objects.requireNonNull(decoder, "decoder");
-//        Objects.requireNonNull(receiver, "receiver");
-//
-//        if (!receivers.containsKey(message)) {
-//            receivers.put(message, new ReceiverData<>(decoder, receiver));
-//        } else {
-//            throw new IllegalStateException("Message " + message + " on side " + side + " already registered");
-//        }
-//    }
-//
-//    @Override
-//    public <D> void send(ResourceLocation message, Encoder<D> encoder, D data) {
-//        Objects.requireNonNull(message, "message");
-//        Objects.requireNonNull(encoder, "encoder");
-//
-//        var ops = getRegistryOps(description.getWorld().registryAccess());
-//        Tag encoded = encoder.encodeStart(ops, data).getOrThrow();
-//        ScreenMessage packet = new ScreenMessage(description.containerId, message, encoded);
-//        if (side == NetworkSide.SERVER) {
-//            description.getPacketSender().accept(new ClientboundCustomPayloadPacket(packet));
-//        } else {
-//            description.getPacketSender().accept(new ServerboundCustomPayloadPacket(packet));
-//        }
-//    }
-//
-//    public static void init() {
-//        // TODO
-//        //        PayloadTypeRegistry.playS2C().register(ScreenMessage.ID, ScreenMessage.CODEC);
-//        //        PayloadTypeRegistry.playC2S().register(ScreenMessage.ID, ScreenMessage.CODEC);
-//        //        ServerPlayNetworking.registerGlobalReceiver(ScreenMessage.ID, (payload, context) -> {
-//        //            handle(context.player().server, context.player(), payload);
-//        //        });
-//    }
-//
-//    public static void handle(Executor executor, Player player, ScreenMessage packet) {
-//        AbstractContainerMenu screenHandler = player.containerMenu;
-//
-//        if (!(screenHandler instanceof SyncedGuiDescription)) {
-//            LOGGER.error("Received message packet for screen handler {} which is not a SyncedGuiDescription",
-//                    screenHandler);
-//            return;
-//        } else if (packet.syncId() != screenHandler.containerId) {
-//            LOGGER.error("Received message for sync ID {}, current sync ID: {}", packet.syncId(),
-//                    screenHandler.containerId);
-//            return;
-//        }
-//
-//        ScreenNetworkingImpl networking = instanceCache.get(screenHandler);
-//
-//        if (networking != null) {
-//            ReceiverData<?> receiverData = networking.receivers.get(packet.message());
-//            if (receiverData != null) {
-//                processMessage(executor, player, packet, screenHandler, receiverData);
-//            } else {
-//                LOGGER.error("Message {} not registered for {} on side {}", packet.message(), screenHandler,
-//                        networking.side);
-//            }
-//        } else {
-//            LOGGER.warn("GUI description {} does not use networking", screenHandler);
-//        }
-//    }
-//
-//    private static <D> void processMessage(Executor executor, Player player, ScreenMessage packet,
-//            AbstractContainerMenu description, ReceiverData<D> receiverData) {
-//        var ops = getRegistryOps(player.registryAccess());
-//        var result = receiverData.decoder().parse(ops, packet.nbt());
-//
-//        switch (result) {
-//        case DataResult.Success(D data, Lifecycle lifecycle) -> executor.execute(() -> {
-//            try {
-//                receiverData.receiver().onMessage(data);
-//            } catch (Exception e) {
-//                LOGGER.error("Error handling screen message {} for {}", packet.message(), description, e);
-//            }
-//        });
-//
-//        case DataResult.Error<D> error ->
-//            LOGGER.error("Could not parse screen message {}: {}", packet.message(), error.message());
-//        }
-//    }
-//
-//    public static ScreenNetworking of(SyncedGuiDescription description, NetworkSide networkSide) {
-//        Objects.requireNonNull(description, "description");
-//        Objects.requireNonNull(networkSide, "networkSide");
-//
-//        if (description.getNetworkSide() == networkSide) {
-//            return instanceCache.computeIfAbsent(description, it -> new ScreenNetworkingImpl(description, networkSide));
-//        } else {
-//            return DummyNetworking.INSTANCE;
-//        }
-//    }
-//
-//    private record ReceiverData<D>(Decoder<D> decoder, MessageReceiver<D> receiver) {
-//    }
-//
-//    private static final class DummyNetworking extends ScreenNetworkingImpl {
-//        static final DummyNetworking INSTANCE = new DummyNetworking();
-//
-//        private DummyNetworking() {
-//            super(null, null);
-//        }
-//
-//        @Override
-//        public <D> void receive(ResourceLocation message, Decoder<D> decoder, MessageReceiver<D> receiver) {
-//            // NO-OP
-//        }
-//
-//        @Override
-//        public <D> void send(ResourceLocation message, Encoder<D> encoder, D data) {
-//            // NO-OP
-//        }
-//    }
-//}
+package dev.tr7zw.trender.gui.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import com.mojang.serialization.DataResult;
+import com.mojang.serialization.Decoder;
+import com.mojang.serialization.DynamicOps;
+import com.mojang.serialization.Encoder;
+
+import dev.tr7zw.trender.gui.SyncedGuiDescription;
+import dev.tr7zw.trender.gui.impl.jfr.ScreenMessageEvent;
+import dev.tr7zw.trender.gui.impl.jfr.ScreenMessageFrameEvent;
+import dev.tr7zw.trender.gui.networking.MessageCodec;
+import dev.tr7zw.trender.gui.networking.NetworkSide;
+import dev.tr7zw.trender.gui.networking.ScreenMessageTransport;
+import dev.tr7zw.trender.gui.networking.ScreenNetworking;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.Tag;
+import net.minecraft.network.FriendlyByteBuf;
+//#if MC >= 12002
+import net.minecraft.network.protocol.common.ClientboundCustomPayloadPacket;
+import net.minecraft.network.protocol.common.ServerboundCustomPayloadPacket;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+//#endif
+//#if MC >= 12005
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+//#elseif MC >= 11802
+//$$ import net.minecraft.resources.RegistryOps;
+//#endif
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+//#if FABRIC
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+//#if MC >= 12005
+import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
+//#else
+//$$ import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+//#endif
+//#elseif FORGE
+//$$ import net.minecraft.server.level.ServerPlayer;
+//$$ import net.minecraftforge.network.NetworkDirection;
+//#if MC >= 12002
+//$$ import net.minecraftforge.network.ChannelBuilder;
+//$$ import net.minecraftforge.network.SimpleChannel;
+//#else
+//$$ import net.minecraftforge.network.NetworkEvent;
+//$$ import net.minecraftforge.network.NetworkRegistry;
+//$$ import net.minecraftforge.network.simple.SimpleChannel;
+//#endif
+//#elseif NEOFORGE
+//#if MC >= 12005
+//$$ import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
+//#elseif MC >= 12004
+//$$ import net.neoforged.neoforge.network.event.RegisterPayloadHandlerEvent;
+//#else
+//$$ import net.minecraft.server.level.ServerPlayer;
+//$$ import net.neoforged.neoforge.network.NetworkEvent;
+//$$ import net.neoforged.neoforge.network.NetworkRegistry;
+//$$ import net.neoforged.neoforge.network.PlayNetworkDirection;
+//$$ import net.neoforged.neoforge.network.simple.SimpleChannel;
+//#endif
+//#endif
+
+/**
+ * The implementation of {@link ScreenNetworking}.
+ *
+ * <p>
+ * Messages are sent in frames of the following form, repeated until the end of
+ * the frame:
+ * <ul>
+ * <li>a varint header: the message ID shifted left by one, with the lowest bit
+ * set if the ID is announced</li>
+ * <li>for announced IDs, the message's resource location</li>
+ * <li>the varint length of the message data, followed by the data</li>
+ * </ul>
+ * Message IDs are assigned per GUI description and side when a message is first
+ * sent, and announced with that first message. Later messages only carry the
+ * ID.
+ *
+ * <p>
+ * Sent messages are queued and flushed once per tick as a single frame, or as
+ * few frames as the packet size limit allows. For coalescible messages, only
+ * the latest queued value is sent.
+ */
+public class ScreenNetworkingImpl implements ScreenNetworking {
+    private static final Logger LOGGER = LogManager.getLogger(ScreenNetworkingImpl.class);
+    // Synchronized, since the server and client threads both use it in singleplayer
+    private static final Map<SyncedGuiDescription, ScreenNetworkingImpl> instanceCache = Collections
+            .synchronizedMap(new WeakHashMap<>());
+    private static final String NBT_VALUE_KEY = "value";
+    private static final int MAX_PENDING_MESSAGES = 4096;
+    private static final int MAX_SERVERBOUND_FRAME_SIZE = 32000;
+    private static final int MAX_CLIENTBOUND_FRAME_SIZE = 1000000;
+    private static volatile ScreenMessageTransport transport = PacketTransport.INSTANCE;
+
+    private static final ResourceLocation CHANNEL_ID = LibGuiCommon.id("screen_message");
+    //#if FORGE
+    //#if MC >= 12002
+    //$$ private static final SimpleChannel CHANNEL = ChannelBuilder.named(CHANNEL_ID).networkProtocolVersion(1)
+    //$$         .optional().simpleChannel();
+    //#else
+    //$$ private static final String PROTOCOL_VERSION = "1";
+    //$$ private static final SimpleChannel CHANNEL = NetworkRegistry.newSimpleChannel(CHANNEL_ID,
+    //$$         () -> PROTOCOL_VERSION, version -> true, version -> true);
+    //#endif
+    //#elseif NEOFORGE
+    //#if MC < 12004
+    //$$ private static final String PROTOCOL_VERSION = "1";
+    //$$ private static final SimpleChannel CHANNEL = NetworkRegistry.newSimpleChannel(CHANNEL_ID,
+    //$$         () -> PROTOCOL_VERSION, version -> true, version -> true);
+    //#endif
+    //#endif
+
+    /**
+     * The packet carrying a frame of screen messages.
+     *
+     * @param syncId the sync ID of the GUI description
+     * @param frame  the encoded frame
+     */
+    //#if MC >= 12005
+    public record ScreenMessage(int syncId, byte[] frame) implements CustomPacketPayload {
+        public static final Type<ScreenMessage> ID = new Type<>(CHANNEL_ID);
+        public static final StreamCodec<FriendlyByteBuf, ScreenMessage> CODEC = StreamCodec
+                .ofMember(ScreenMessage::write, ScreenMessage::read);
+
+        @Override
+        public Type<? extends CustomPacketPayload> type() {
+            return ID;
+        }
+    //#elseif MC >= 12002
+    //$$ public record ScreenMessage(int syncId, byte[] frame) implements CustomPacketPayload {
+    //$$     public static final ResourceLocation ID = CHANNEL_ID;
+    //$$
+    //$$     @Override
+    //$$     public ResourceLocation id() {
+    //$$         return ID;
+    //$$     }
+    //#else
+    //$$ public record ScreenMessage(int syncId, byte[] frame) {
+    //$$     public static final ResourceLocation ID = CHANNEL_ID;
+    //#endif
+
+        public static ScreenMessage read(FriendlyByteBuf buf) {
+            return new ScreenMessage(buf.readVarInt(), buf.readByteArray());
+        }
+
+        public void write(FriendlyByteBuf buf) {
+            buf.writeVarInt(syncId);
+            buf.writeByteArray(frame);
+        }
+    }
+
+    private final Map<ResourceLocation, ReceiverData<?>> receivers = new HashMap<>();
+    private final Set<ResourceLocation> coalescible = new HashSet<>();
+    private final List<PendingMessage> pending = new ArrayList<>();
+    /** The pending message of each coalescible message ID. */
+    private final Map<ResourceLocation, PendingMessage> pendingLatest = new HashMap<>();
+    private final Object2IntMap<ResourceLocation> outgoingIds = new Object2IntOpenHashMap<>();
+    private final Int2ObjectMap<ResourceLocation> incomingIds = new Int2ObjectOpenHashMap<>();
+    private final SyncedGuiDescription description;
+    private final NetworkSide side;
+    private long sentMessages = 0;
+    private long coalescedMessages = 0;
+    private long droppedMessages = 0;
+    private long sentFrames = 0;
+    private long sentBytes = 0;
+
+    private ScreenNetworkingImpl(SyncedGuiDescription description, NetworkSide side) {
+        this.description = description;
+        this.side = side;
+        outgoingIds.defaultReturnValue(-1);
+    }
+
+    /**
+     * Sets the transport used to send screen messages.
+     *
+     * @param transport the new transport, or null to use the default packet
+     *                  transport
+     */
+    public static void setTransport(@Nullable ScreenMessageTransport transport) {
+        ScreenNetworkingImpl.transport = transport != null ? transport : PacketTransport.INSTANCE;
+    }
+
+    private DynamicOps<Tag> getNbtOps() {
+        //#if MC >= 12005
+        return description.getWorld().registryAccess().createSerializationContext(NbtOps.INSTANCE);
+        //#elseif MC >= 11802
+        //$$ return RegistryOps.create(NbtOps.INSTANCE, description.getWorld().registryAccess());
+        //#else
+        //$$ return NbtOps.INSTANCE;
+        //#endif
+    }
+
+    private FriendlyByteBuf createBuffer(ByteBuf buf) {
+        //#if MC >= 12005
+        return new RegistryFriendlyByteBuf(buf, description.getWorld().registryAccess());
+        //#else
+        //$$ return new FriendlyByteBuf(buf);
+        //#endif
+    }
+
+    /**
+     * Adapts DFU encoders and decoders to the binary message format. The data is
+     * written as an NBT tree, like in earlier versions of screen networking.
+     */
+    private <D> MessageCodec<D> nbtCodec(@Nullable Encoder<D> encoder, @Nullable Decoder<D> decoder) {
+        return MessageCodec.of((buf, data) -> {
+            DataResult<Tag> result = encoder.encodeStart(getNbtOps(), data);
+            Tag encoded = result.result().orElseThrow(() -> new IllegalArgumentException(
+                    "Could not encode screen message: " + result.error().map(e -> e.message()).orElse("")));
+            CompoundTag wrapper = new CompoundTag();
+            wrapper.put(NBT_VALUE_KEY, encoded);
+            buf.writeNbt(wrapper);
+        }, buf -> {
+            CompoundTag wrapper = buf.readNbt();
+            Tag encoded = wrapper != null ? wrapper.get(NBT_VALUE_KEY) : null;
+            if (encoded == null)
+                throw new IllegalArgumentException("Missing screen message data");
+            DataResult<D> result = decoder.parse(getNbtOps(), encoded);
+            return result.result().orElseThrow(() -> new IllegalArgumentException(
+                    "Could not parse screen message: " + result.error().map(e -> e.message()).orElse("")));
+        });
+    }
+
+    @Override
+    public <D> void receive(ResourceLocation message, Decoder<D> decoder, MessageReceiver<D> receiver) {
+        Objects.requireNonNull(decoder, "decoder");
+        receive(message, nbtCodec(null, decoder), receiver);
+    }
+
+    @Override
+    public <D> void receive(ResourceLocation message, MessageCodec<D> codec, MessageReceiver<D> receiver) {
+        Objects.requireNonNull(message, "message");
+        Objects.requireNonNull(codec, "codec");
+        Objects.requireNonNull(receiver, "receiver");
+
+        if (!receivers.containsKey(message)) {
+            receivers.put(message, new ReceiverData<>(codec, receiver));
+        } else {
+            throw new IllegalStateException("Message " + message + " on side " + side + " already registered");
+        }
+    }
+
+    @Override
+    public <D> void send(ResourceLocation message, Encoder<D> encoder, D data) {
+        Objects.requireNonNull(encoder, "encoder");
+        send(message, nbtCodec(encoder, null), data);
+    }
+
+    @Override
+    public <D> void send(ResourceLocation message, MessageCodec<D> codec, D data) {
+        Objects.requireNonNull(message, "message");
+        Objects.requireNonNull(codec, "codec");
+
+        // Encoded right away, so the data can be changed after sending
+        byte[] body = encode(codec, data);
+        boolean latestOnly = coalescible.contains(message);
+        if (latestOnly) {
+            PendingMessage existing = pendingLatest.get(message);
+            if (existing != null) {
+                existing.body = body;
+                coalescedMessages++;
+                return;
+            }
+        }
+
+        if (pending.size() >= MAX_PENDING_MESSAGES) {
+            if (droppedMessages++ == 0)
+                LOGGER.warn("Too many pending screen messages for {}, dropping {}", description, message);
+            return;
+        }
+
+        PendingMessage pendingMessage = new PendingMessage(message, body);
+        pending.add(pendingMessage);
+        if (latestOnly)
+            pendingLatest.put(message, pendingMessage);
+    }
+
+    @Override
+    public ScreenNetworking markCoalescible(ResourceLocation message) {
+        coalescible.add(Objects.requireNonNull(message, "message"));
+        return this;
+    }
+
+    @Override
+    public Metrics getMetrics() {
+        return new Metrics(sentMessages, coalescedMessages, droppedMessages, sentFrames, sentBytes);
+    }
+
+    /**
+     * Sends the pending messages of a GUI description, if it uses networking.
+     * Called once per tick, and when the description is closed.
+     *
+     * @param description the GUI description
+     */
+    public static void flush(SyncedGuiDescription description) {
+        ScreenNetworkingImpl networking = instanceCache.get(description);
+        if (networking != null)
+            networking.flush();
+    }
+
+    private void flush() {
+        if (pending.isEmpty())
+            return;
+
+        // Serverbound custom payloads are much smaller than clientbound ones
+        int maxFrameSize = side == NetworkSide.CLIENT ? MAX_SERVERBOUND_FRAME_SIZE : MAX_CLIENTBOUND_FRAME_SIZE;
+        FriendlyByteBuf frame = createBuffer(Unpooled.buffer());
+        try {
+            int frameMessages = 0;
+            for (PendingMessage message : pending) {
+                if (frame.isReadable() && frame.readableBytes() + message.body.length + 8 > maxFrameSize) {
+                    sendFrame(frame, frameMessages);
+                    frame.clear();
+                    frameMessages = 0;
+                }
+                writeMessage(frame, message.message, message.body);
+                sentMessages++;
+                frameMessages++;
+            }
+            sendFrame(frame, frameMessages);
+        } finally {
+            frame.release();
+            pending.clear();
+            pendingLatest.clear();
+        }
+    }
+
+    private void sendFrame(FriendlyByteBuf frame, int messages) {
+        ScreenMessageFrameEvent event = new ScreenMessageFrameEvent();
+        event.begin();
+        byte[] bytes = new byte[frame.readableBytes()];
+        frame.readBytes(bytes);
+        sentFrames++;
+        sentBytes += bytes.length;
+        transport.send(description, side, bytes);
+        event.end();
+        if (event.shouldCommit()) {
+            event.side = side.name();
+            event.messages = messages;
+            event.size = bytes.length;
+            event.commit();
+        }
+    }
+
+    private <D> byte[] encode(MessageCodec<D> codec, D data) {
+        FriendlyByteBuf body = createBuffer(Unpooled.buffer());
+        try {
+            codec.encode(body, data);
+            byte[] bytes = new byte[body.readableBytes()];
+            body.readBytes(bytes);
+            return bytes;
+        } finally {
+            body.release();
+        }
+    }
+
+    private void writeMessage(FriendlyByteBuf frame, ResourceLocation message, byte[] body) {
+        int id = outgoingIds.getInt(message);
+        boolean announce = id < 0;
+        if (announce) {
+            id = outgoingIds.size();
+            outgoingIds.put(message, id);
+        }
+
+        frame.writeVarInt((id << 1) | (announce ? 1 : 0));
+        if (announce)
+            frame.writeResourceLocation(message);
+        frame.writeVarInt(body.length);
+        frame.writeBytes(body);
+    }
+
+    /**
+     * Handles a frame of screen messages for a GUI description. Must be called on
+     * the thread that owns the description.
+     *
+     * @param description the receiving GUI description
+     * @param side        the side receiving the frame
+     * @param bytes       the encoded frame
+     */
+    public static void receiveFrame(SyncedGuiDescription description, NetworkSide side, byte[] bytes) {
+        ScreenNetworkingImpl networking = instanceCache.get(description);
+        if (networking == null || networking.side != side) {
+            LOGGER.warn("GUI description {} does not use networking on side {}", description, side);
+            return;
+        }
+
+        FriendlyByteBuf frame = networking.createBuffer(Unpooled.wrappedBuffer(bytes));
+        try {
+            networking.readFrame(frame);
+        } catch (RuntimeException e) {
+            LOGGER.error("Received malformed screen message frame for {} on side {}", description, side, e);
+        }
+    }
+
+    private void readFrame(FriendlyByteBuf frame) {
+        while (frame.isReadable()) {
+            int header = frame.readVarInt();
+            int id = header >>> 1;
+            ResourceLocation message;
+            if ((header & 1) != 0) {
+                message = frame.readResourceLocation();
+                // Only registered messages get an ID, which bounds the table by the receiver count
+                if (!receivers.containsKey(message)) {
+                    LOGGER.error("Message {} not registered for {} on side {}", message, description, side);
+                    frame.skipBytes(frame.readVarInt());
+                    continue;
+                } else if (!incomingIds.containsKey(id) && incomingIds.size() >= receivers.size()) {
+                    LOGGER.error("Too many message IDs announced for {} on side {}, dropping frame", description,
+                            side);
+                    return;
+                } else {
+                    incomingIds.put(id, message);
+                }
+            } else {
+                message = incomingIds.get(id);
+            }
+
+            int length = frame.readVarInt();
+            FriendlyByteBuf data = createBuffer(frame.readSlice(length));
+            if (message == null) {
+                LOGGER.error("Received unknown message ID {} for {} on side {}", id, description, side);
+                continue;
+            }
+
+            ReceiverData<?> receiverData = receivers.get(message);
+            if (receiverData != null) {
+                processMessage(description, side, message, data, receiverData);
+            } else {
+                LOGGER.error("Message {} not registered for {} on side {}", message, description, side);
+            }
+        }
+    }
+
+    private static <D> void processMessage(SyncedGuiDescription description, NetworkSide side,
+            ResourceLocation message, FriendlyByteBuf data, ReceiverData<D> receiverData) {
+        ScreenMessageEvent event = new ScreenMessageEvent();
+        event.begin();
+        int size = data.readableBytes();
+        try {
+            handleMessage(description, message, data, receiverData);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.message = message.toString();
+                event.side = side.name();
+                event.size = size;
+                event.commit();
+            }
+        }
+    }
+
+    private static <D> void handleMessage(SyncedGuiDescription description, ResourceLocation message,
+            FriendlyByteBuf data, ReceiverData<D> receiverData) {
+        D decoded;
+        try {
+            decoded = receiverData.codec().decode(data);
+        } catch (Exception e) {
+            LOGGER.error("Could not parse screen message {}", message, e);
+            return;
+        }
+
+        if (data.isReadable()) {
+            LOGGER.warn("Screen message {} has {} unread bytes", message, data.readableBytes());
+        }
+
+        try {
+            receiverData.receiver().onMessage(decoded);
+        } catch (Exception e) {
+            LOGGER.error("Error handling screen message {} for {}", message, description, e);
+        }
+    }
+
+    /**
+     * Registers the screen message packet and its server-side receiver with the
+     * mod loader. Called once when the mod is initialized. The client-side
+     * receiver is registered by the client initializer on Fabric.
+     */
+    public static void init() {
+        //#if FABRIC
+        //#if MC >= 12005
+        PayloadTypeRegistry.playS2C().register(ScreenMessage.ID, ScreenMessage.CODEC);
+        PayloadTypeRegistry.playC2S().register(ScreenMessage.ID, ScreenMessage.CODEC);
+        ServerPlayNetworking.registerGlobalReceiver(ScreenMessage.ID,
+                (payload, context) -> handle(context.player().getServer(), context::player, payload));
+        //#else
+        //$$ ServerPlayNetworking.registerGlobalReceiver(ScreenMessage.ID, (server, player, handler, buf,
+        //$$         responseSender) -> handle(server, () -> player, ScreenMessage.read(buf)));
+        //#endif
+        //#elseif FORGE
+        //#if MC >= 12002
+        //$$ CHANNEL.messageBuilder(ScreenMessage.class).encoder(ScreenMessage::write).decoder(ScreenMessage::read)
+        //$$         .consumerNetworkThread((message, context) -> {
+        //$$             ServerPlayer sender = context.getSender();
+        //$$             handle(context::enqueueWork, sender != null ? () -> sender : Proxy.proxy::getClientPlayer,
+        //$$                     message);
+        //$$             context.setPacketHandled(true);
+        //$$         }).add();
+        //#else
+        //$$ CHANNEL.messageBuilder(ScreenMessage.class, 0).encoder(ScreenMessage::write).decoder(ScreenMessage::read)
+        //#if MC >= 11900
+        //$$         .consumerNetworkThread((message, supplier) -> {
+        //#else
+        //$$         .consumer((message, supplier) -> {
+        //#endif
+        //$$             NetworkEvent.Context context = supplier.get();
+        //$$             ServerPlayer sender = context.getSender();
+        //$$             handle(context::enqueueWork, sender != null ? () -> sender : Proxy.proxy::getClientPlayer,
+        //$$                     message);
+        //$$             context.setPacketHandled(true);
+        //$$         }).add();
+        //#endif
+        //#elseif NEOFORGE
+        //#if MC < 12004
+        //$$ CHANNEL.messageBuilder(ScreenMessage.class, 0).encoder(ScreenMessage::write).decoder(ScreenMessage::read)
+        //$$         .consumerNetworkThread((message, context) -> {
+        //$$             ServerPlayer sender = context.getSender();
+        //$$             handle(context::enqueueWork, sender != null ? () -> sender : Proxy.proxy::getClientPlayer,
+        //$$                     message);
+        //$$             context.setPacketHandled(true);
+        //$$         }).add();
+        //#endif
+        //#endif
+    }
+
+    //#if NEOFORGE
+    //#if MC >= 12005
+    //$$ /**
+    //$$  * Registers the screen message payload in both directions. Listens on the mod
+    //$$  * event bus.
+    //$$  *
+    //$$  * @param event the registration event
+    //$$  */
+    //$$ public static void registerPayloads(RegisterPayloadHandlersEvent event) {
+    //$$     event.registrar("1").optional().playBidirectional(ScreenMessage.ID, ScreenMessage.CODEC,
+    //$$             (payload, context) -> handle(context::enqueueWork, context::player, payload));
+    //$$ }
+    //#elseif MC >= 12004
+    //$$ /**
+    //$$  * Registers the screen message payload in both directions. Listens on the mod
+    //$$  * event bus.
+    //$$  *
+    //$$  * @param event the registration event
+    //$$  */
+    //$$ public static void registerPayloads(RegisterPayloadHandlerEvent event) {
+    //$$     event.registrar(LibGuiCommon.MOD_ID).optional().play(ScreenMessage.ID, ScreenMessage::read,
+    //$$             (payload, context) -> handle(context.workHandler()::execute, () -> context.player().orElse(null),
+    //$$                     payload));
+    //$$ }
+    //#endif
+    //#endif
+
+    /**
+     * Handles a received screen message packet.
+     *
+     * @param executor the executor of the thread that owns the receiving player's
+     *                 menu
+     * @param player   the receiving player, queried on that thread
+     * @param packet   the packet
+     */
+    public static void handle(Executor executor, Supplier<? extends Player> player, ScreenMessage packet) {
+        executor.execute(() -> {
+            Player receiver = player.get();
+            AbstractContainerMenu screenHandler = receiver != null ? receiver.containerMenu : null;
+
+            if (!(screenHandler instanceof SyncedGuiDescription description)) {
+                LOGGER.error("Received message packet for screen handler {} which is not a SyncedGuiDescription",
+                        screenHandler);
+                return;
+            } else if (packet.syncId() != screenHandler.containerId) {
+                LOGGER.error("Received message for sync ID {}, current sync ID: {}", packet.syncId(),
+                        screenHandler.containerId);
+                return;
+            }
+
+            receiveFrame(description, description.getNetworkSide(), packet.frame());
+        });
+    }
+
+    public static ScreenNetworking of(SyncedGuiDescription description, NetworkSide networkSide) {
+        Objects.requireNonNull(description, "description");
+        Objects.requireNonNull(networkSide, "networkSide");
+
+        if (transport.getSide(description) == networkSide) {
+            return instanceCache.computeIfAbsent(description, it -> new ScreenNetworkingImpl(description, networkSide));
+        } else {
+            return DummyNetworking.INSTANCE;
+        }
+    }
+
+    private record ReceiverData<D>(MessageCodec<D> codec, MessageReceiver<D> receiver) {
+    }
+
+    private static final class PendingMessage {
+        final ResourceLocation message;
+        byte[] body;
+
+        PendingMessage(ResourceLocation message, byte[] body) {
+            this.message = message;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Sends frames as custom payload packets.
+     */
+    private static final class PacketTransport implements ScreenMessageTransport {
+        static final PacketTransport INSTANCE = new PacketTransport();
+
+        @Override
+        public void send(SyncedGuiDescription description, NetworkSide side, byte[] frame) {
+            ScreenMessage packet = new ScreenMessage(description.containerId, frame);
+            boolean clientbound = side == NetworkSide.SERVER;
+            //#if FORGE
+            //$$ description.getPacketSender().accept(CHANNEL.toVanillaPacket(packet,
+            //$$         clientbound ? NetworkDirection.PLAY_TO_CLIENT : NetworkDirection.PLAY_TO_SERVER));
+            //#elseif FABRIC
+            //#if MC >= 12005
+            description.getPacketSender().accept(clientbound ? new ClientboundCustomPayloadPacket(packet)
+                    : new ServerboundCustomPayloadPacket(packet));
+            //#else
+            //$$ FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+            //$$ packet.write(buf);
+            //$$ description.getPacketSender().accept(clientbound ? ServerPlayNetworking.createS2CPacket(ScreenMessage.ID, buf)
+            //$$         : ClientPlayNetworking.createC2SPacket(ScreenMessage.ID, buf));
+            //#endif
+            //#else
+            //#if MC >= 12004
+            //$$ description.getPacketSender().accept(clientbound ? new ClientboundCustomPayloadPacket(packet)
+            //$$         : new ServerboundCustomPayloadPacket(packet));
+            //#else
+            //$$ description.getPacketSender().accept(CHANNEL.toVanillaPacket(packet,
+            //$$         clientbound ? PlayNetworkDirection.PLAY_TO_CLIENT : PlayNetworkDirection.PLAY_TO_SERVER));
+            //#endif
+            //#endif
+        }
+    }
+
+    private static final class DummyNetworking extends ScreenNetworkingImpl {
+        static final DummyNetworking INSTANCE = new DummyNetworking();
+
+        private DummyNetworking() {
+            super(null, null);
+        }
+
+        @Override
+        public <D> void receive(ResourceLocation message, MessageCodec<D> codec, MessageReceiver<D> receiver) {
+            // NO-OP
+        }
+
+        @Override
+        public <D> void send(ResourceLocation message, MessageCodec<D> codec, D data) {
+            // NO-OP
+        }
+
+        @Override
+        public ScreenNetworking markCoalescible(ResourceLocation message) {
+            return this;
+        }
+    }
+}
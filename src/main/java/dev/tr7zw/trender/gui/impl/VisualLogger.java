@@ -1,7 +1,11 @@
 package dev.tr7zw.trender.gui.impl;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -18,9 +22,33 @@ import net.minecraft.util.FormattedCharSequence;
 
 /**
  * A "logger" that renders its messages on the screen in dev envs.
+ *
+ * <p>
+ * The on-screen buffer is bounded: it holds the last {@value #CAPACITY}
+ * distinct messages, and repeated messages only increase the occurrence count
+ * of their entry. Each call site, identified by the logger class, level and
+ * message pattern, is rate-limited; messages over the limit are folded into the
+ * last entry of their call site without being formatted.
+ *
+ * <p>
+ * Each entry keeps its wrapped lines, and is only wrapped again when its count
+ * or the screen width changes. Count changes of suppressed messages are shown
+ * at most {@value #COUNT_REFRESHES_PER_SECOND} times per second.
  */
 public final class VisualLogger {
-    private static final List<Component> WARNINGS = new ArrayList<>();
+    private static final int CAPACITY = 32;
+    private static final int MESSAGES_PER_WINDOW = 5;
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+    private static final int COUNT_REFRESHES_PER_SECOND = 4;
+    private static final Object LOCK = new Object();
+    private static final Map<String, Entry> ENTRIES = new LinkedHashMap<>();
+    private static final Map<String, CallSite> CALL_SITES = new HashMap<>();
+    private static List<FormattedCharSequence> cachedLines = List.of();
+    private static int[] cachedLineWidths = new int[0];
+    private static int cachedWidth = -1;
+    private static boolean dirty = false;
+    private static boolean countsDirty = false;
+    private static long lastRefresh = 0;
 
     private final Logger logger;
     private final Class<?> clazz;
@@ -39,39 +67,149 @@ public final class VisualLogger {
     }
 
     private void log(String message, Object[] params, Level level, ChatFormatting formatting) {
-        logger.log(level, message, params);
-
-        // TODO
-        //        if (FabricLoader.getInstance().isDevelopmentEnvironment()) {
-        var text = ComponentProvider.literal(clazz.getSimpleName() + '/');
-        text.append(ComponentProvider.literal(level.name()).withStyle(formatting));
-        text.append(ComponentProvider.literal(": " + ParameterizedMessage.format(message, params)));
+        int suppressed;
+        synchronized (LOCK) {
+            CallSite site = CALL_SITES.computeIfAbsent(clazz.getName() + '/' + level.name() + '/' + message,
+                    key -> new CallSite());
+            long now = System.nanoTime();
+            if (now - site.windowStart >= WINDOW_NANOS) {
+                site.windowStart = now;
+                site.logged = 0;
+            }
+
+            if (site.logged >= MESSAGES_PER_WINDOW) {
+                site.suppressed++;
+                if (site.last != null && ENTRIES.get(site.last.key) == site.last) {
+                    site.last.count++;
+                    countsDirty = true;
+                }
+                return;
+            }
+
+            site.logged++;
+            suppressed = site.suppressed;
+            site.suppressed = 0;
+
+            // TODO
+            //        if (FabricLoader.getInstance().isDevelopmentEnvironment()) {
+            String formatted = ParameterizedMessage.format(message, params);
+            String key = clazz.getSimpleName() + '/' + level.name() + ": " + formatted;
+            Entry entry = ENTRIES.get(key);
+            if (entry == null) {
+                var text = ComponentProvider.literal(clazz.getSimpleName() + '/');
+                text.append(ComponentProvider.literal(level.name()).withStyle(formatting));
+                text.append(ComponentProvider.literal(": " + formatted));
+                entry = new Entry(key, text);
+                ENTRIES.put(key, entry);
+                if (ENTRIES.size() > CAPACITY) {
+                    Iterator<Entry> eldest = ENTRIES.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                }
+            } else {
+                entry.count++;
+            }
+            site.last = entry;
+            dirty = true;
+            //        }
+        }
 
-        WARNINGS.add(text);
-        //        }
+        if (suppressed > 0) {
+            logger.log(level, "Suppressed {} similar messages", suppressed);
+        }
+        logger.log(level, message, params);
     }
 
     public static void render(RenderContext context) {
         var client = Minecraft.getInstance();
         var textRenderer = client.font;
         int width = client.getWindow().getGuiScaledWidth();
-        List<FormattedCharSequence> lines = new ArrayList<>();
-
-        for (Component warning : WARNINGS) {
-            lines.addAll(textRenderer.split(warning, width));
+        List<FormattedCharSequence> lines;
+        int[] lineWidths;
+
+        synchronized (LOCK) {
+            long now = System.nanoTime();
+            if (dirty || width != cachedWidth
+                    || (countsDirty && now - lastRefresh >= WINDOW_NANOS / COUNT_REFRESHES_PER_SECOND)) {
+                List<FormattedCharSequence> wrapped = new ArrayList<>();
+                int lineCount = 0;
+                for (Entry entry : ENTRIES.values()) {
+                    if (entry.wrappedCount != entry.count || entry.wrappedWidth != width) {
+                        Component text = entry.count > 1
+                                ? entry.text.copy().append(ComponentProvider.literal(" (x" + entry.count + ")"))
+                                : entry.text;
+                        entry.lines = textRenderer.split(text, width);
+                        entry.lineWidths = new int[entry.lines.size()];
+                        for (int i = 0; i < entry.lineWidths.length; i++) {
+                            entry.lineWidths[i] = textRenderer.width(entry.lines.get(i));
+                        }
+                        entry.wrappedCount = entry.count;
+                        entry.wrappedWidth = width;
+                    }
+                    wrapped.addAll(entry.lines);
+                    lineCount += entry.lineWidths.length;
+                }
+
+                int[] widths = new int[lineCount];
+                int offset = 0;
+                for (Entry entry : ENTRIES.values()) {
+                    System.arraycopy(entry.lineWidths, 0, widths, offset, entry.lineWidths.length);
+                    offset += entry.lineWidths.length;
+                }
+
+                cachedLines = wrapped;
+                cachedLineWidths = widths;
+                cachedWidth = width;
+                dirty = false;
+                countsDirty = false;
+                lastRefresh = now;
+            }
+
+            lines = cachedLines;
+            lineWidths = cachedLineWidths;
         }
 
         int fontHeight = textRenderer.lineHeight;
         int y = 0;
 
-        for (var line : lines) {
-            ScreenDrawing.coloredRect(context, 2, 2 + y, textRenderer.width(line), fontHeight, 0x88_000000);
-            ScreenDrawing.drawString(context, line, 2, 2 + y, 0xFF_FFFFFF);
+        for (int i = 0; i < lines.size(); i++) {
+            ScreenDrawing.coloredRect(context, 2, 2 + y, lineWidths[i], fontHeight, 0x88_000000);
+            ScreenDrawing.drawString(context, lines.get(i), 2, 2 + y, 0xFF_FFFFFF);
             y += fontHeight;
         }
     }
 
     public static void reset() {
-        WARNINGS.clear();
+        synchronized (LOCK) {
+            ENTRIES.clear();
+            CALL_SITES.clear();
+            cachedLines = List.of();
+            cachedLineWidths = new int[0];
+            dirty = false;
+            countsDirty = false;
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        final Component text;
+        int count = 1;
+        /** The wrapped lines of the text, valid for the wrapped count and width. */
+        List<FormattedCharSequence> lines = List.of();
+        int[] lineWidths = new int[0];
+        int wrappedCount = 0;
+        int wrappedWidth = -1;
+
+        Entry(String key, Component text) {
+            this.key = key;
+            this.text = text;
+        }
+    }
+
+    private static final class CallSite {
+        long windowStart = System.nanoTime();
+        int logged = 0;
+        int suppressed = 0;
+        Entry last = null;
     }
 }
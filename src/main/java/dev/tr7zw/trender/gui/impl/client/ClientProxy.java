@@ -2,10 +2,17 @@ package dev.tr7zw.trender.gui.impl.client;
 
 import dev.tr7zw.trender.gui.impl.Proxy;
 import dev.tr7zw.trender.gui.widget.WWidget;
+import net.minecraft.client.Minecraft;
+import net.minecraft.world.entity.player.Player;
 
 public final class ClientProxy extends Proxy {
     @Override
     public void addPainters(WWidget widget) {
         widget.addPainters();
     }
+
+    @Override
+    public Player getClientPlayer() {
+        return Minecraft.getInstance().player;
+    }
 }
@@ -30,11 +30,20 @@
 //$$import net.neoforged.fml.loading.FMLEnvironment;
 //$$import net.neoforged.fml.common.Mod;
 //$$import dev.tr7zw.trender.gui.impl.LibGuiCommon;
+//#if MC >= 12004
+//$$import dev.tr7zw.trender.gui.impl.ScreenNetworkingImpl;
+//$$import net.neoforged.bus.api.IEventBus;
+//#endif
 //$$
 //$$@Mod("trender")
 //$$public class LibGuiBootstrap {
 //$$
+//#if MC >= 12004
+//$$    public LibGuiBootstrap(IEventBus modEventBus) {
+//$$        modEventBus.addListener(ScreenNetworkingImpl::registerPayloads);
+//#else
 //$$    public LibGuiBootstrap() {
+//#endif
 //$$        if(FMLEnvironment.dist == Dist.CLIENT) {
 //$$         new LibGuiClient().onInitializeClient();
 //$$        }
@@ -1,16 +1,29 @@
 package dev.tr7zw.trender.gui.impl.client;
 
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import dev.tr7zw.transition.loader.ModLoaderUtil;
 import dev.tr7zw.transition.mc.ComponentProvider;
+import dev.tr7zw.trender.gui.client.ConfigPersistence;
 import dev.tr7zw.trender.gui.client.CottonClientScreen;
 import dev.tr7zw.trender.gui.impl.Proxy;
+import dev.tr7zw.trender.gui.impl.ScreenNetworkingImpl;
+import dev.tr7zw.trender.gui.impl.ScreenNetworkingImpl.ScreenMessage;
 import dev.tr7zw.trender.gui.impl.client.config.LibGuiConfig;
 import dev.tr7zw.trender.gui.impl.modmenu.ConfigGui;
 //#if FABRIC
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.fabricmc.loader.api.FabricLoader;
+//#elseif FORGE
+//$$ import net.minecraftforge.fml.loading.FMLPaths;
+//#else
+//$$ import net.neoforged.fml.loading.FMLPaths;
 //#endif
 
 public class LibGuiClient
@@ -20,62 +33,108 @@ public class LibGuiClient
 {
     public static final Logger logger = LogManager.getLogger();
     public static volatile LibGuiConfig config;
-
-    //    public static final Jankson jankson = JanksonFactory.createJankson();
+    private static final Object CONFIG_LOCK = new Object();
+    private static volatile CompletableFuture<Void> configLoad = CompletableFuture.completedFuture(null);
+    private static ConfigPersistence<LibGuiConfig> persistence;
 
     //#if FABRIC
     @Override
     //#endif
     public void onInitializeClient() {
-        config = loadConfig();
+        // The defaults are only read until the file is loaded; changes wait for the load
+        config = new LibGuiConfig();
+        configLoad = getPersistence().loadAsync().thenAccept(loaded -> {
+            synchronized (CONFIG_LOCK) {
+                config = loaded;
+            }
+        });
 
-        //        ClientPlayNetworking.registerGlobalReceiver(ScreenNetworkingImpl.ScreenMessage.ID, (payload, context) -> {
-        //            ScreenNetworkingImpl.handle(context.client(), context.player(), payload);
-        //        });
+        //#if FABRIC
+        //#if MC >= 12005
+        ClientPlayNetworking.registerGlobalReceiver(ScreenMessage.ID,
+                (payload, context) -> ScreenNetworkingImpl.handle(context.client(), context::player, payload));
+        //#else
+        //$$ ClientPlayNetworking.registerGlobalReceiver(ScreenMessage.ID, (client, handler, buf,
+        //$$         responseSender) -> ScreenNetworkingImpl.handle(client, () -> client.player, ScreenMessage.read(buf)));
+        //#endif
+        //#endif
 
         Proxy.proxy = new ClientProxy();
         ModLoaderUtil.disableDisplayTest();
         System.out.println("[LibGui] Initializing Client...");
-        ModLoaderUtil.registerConfigScreen(
-                (screen) -> new CottonClientScreen(ComponentProvider.literal("TRender"), new ConfigGui(screen)));
+        ModLoaderUtil.registerConfigScreen((screen) -> {
+            awaitConfig();
+            return new CottonClientScreen(ComponentProvider.literal("TRender"), new ConfigGui(screen));
+        });
     }
 
-    public static LibGuiConfig loadConfig() {
-        try {
-            //            Path file = FabricLoader.getInstance().getConfigDir().resolve("libgui.json5");
-
-            //            if (Files.notExists(file))
-            //                saveConfig(new LibGuiConfig());
+    /**
+     * Waits until the config file is loaded, so changes are made to the loaded
+     * config instead of the defaults.
+     */
+    public static void awaitConfig() {
+        configLoad.join();
+    }
 
-            //            JsonObject json;
-            //            try (InputStream in = Files.newInputStream(file)) {
-            //                json = jankson.load(in);
-            //            }
-            //
-            //            config = jankson.fromJson(json, LibGuiConfig.class);
+    /**
+     * Changes the current config. Waits for the config file to be loaded first,
+     * so the change is applied to the loaded config.
+     *
+     * @param update the change to apply to the config
+     */
+    public static void updateConfig(Consumer<LibGuiConfig> update) {
+        awaitConfig();
+        synchronized (CONFIG_LOCK) {
+            update.accept(config);
+        }
+    }
 
-            /*
-             * JsonElement jsonElementNew = jankson.toJson(new LibGuiConfig());
-             * if(jsonElementNew instanceof JsonObject) { JsonObject jsonNew = (JsonObject)
-             * jsonElementNew; if(json.getDelta(jsonNew).size()>= 0) { //TODO: Insert new
-             * keys as defaults into `json` IR object instead of writing the config out, so
-             * comments are preserved saveConfig(config); } }
-             */
-        } catch (Exception e) {
-            logger.error("[LibGui] Error loading config: {}", e.getMessage());
+    /**
+     * Replaces the current config. Waits for the config file to be loaded first,
+     * so the load doesn't replace it afterwards.
+     *
+     * @param config the new config
+     */
+    public static void setConfig(LibGuiConfig config) {
+        awaitConfig();
+        synchronized (CONFIG_LOCK) {
+            LibGuiClient.config = config;
         }
-        return new LibGuiConfig();//config;
     }
 
+    /**
+     * Loads the config on the calling thread.
+     *
+     * @return the loaded config, or the default config if it couldn't be loaded
+     */
+    public static LibGuiConfig loadConfig() {
+        return getPersistence().load();
+    }
+
+    /**
+     * Schedules a debounced write of the config, which happens off the render
+     * thread. Waits for the config file to be loaded first, so the defaults are
+     * never written over it.
+     *
+     * @param config the config
+     */
     public static void saveConfig(LibGuiConfig config) {
-        try {
-            //            Path file = FabricLoader.getInstance().getConfigDir().resolve("libgui.json5");
+        awaitConfig();
+        getPersistence().save(config);
+    }
 
-            //            JsonElement json = jankson.toJson(config);
-            //            String result = json.toJson(true, true);
-            //            Files.write(file, result.getBytes(StandardCharsets.UTF_8));
-        } catch (Exception e) {
-            logger.error("[LibGui] Error saving config: {}", e.getMessage());
-        }
+    private static synchronized ConfigPersistence<LibGuiConfig> getPersistence() {
+        if (persistence == null)
+            persistence = new ConfigPersistence<>(getConfigDir().resolve("trender.json"), LibGuiConfig.class,
+                    LibGuiConfig::new);
+        return persistence;
+    }
+
+    private static Path getConfigDir() {
+        //#if FABRIC
+        return FabricLoader.getInstance().getConfigDir();
+        //#else
+        //$$ return FMLPaths.CONFIGDIR.get();
+        //#endif
     }
 }
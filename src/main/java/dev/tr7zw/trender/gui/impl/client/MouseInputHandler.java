@@ -117,7 +117,13 @@ public final class MouseInputHandler<S extends Screen & CottonScreenImpl> {
         WWidget current = bottom;
 
         while (current != null) {
-            InputResult result = function.apply(current);
+            int token = WidgetProfiler.begin(current, WidgetProfiler.Phase.INPUT);
+            InputResult result;
+            try {
+                result = function.apply(current);
+            } finally {
+                WidgetProfiler.end(token);
+            }
 
             if (result == InputResult.PROCESSED) {
                 break;
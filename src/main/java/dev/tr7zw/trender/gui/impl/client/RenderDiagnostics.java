@@ -0,0 +1,376 @@
+package dev.tr7zw.trender.gui.impl.client;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import org.jetbrains.annotations.Nullable;
+
+import dev.tr7zw.trender.gui.client.RenderContext;
+import dev.tr7zw.trender.gui.client.ScreenDrawing;
+import dev.tr7zw.trender.gui.impl.client.config.LibGuiConfig;
+import dev.tr7zw.trender.gui.widget.WWidget;
+import net.minecraft.client.Minecraft;
+
+/**
+ * A diagnostics mode that counts the draw calls, texture changes, flushes and
+ * scissor changes of Cotton screens, per frame and per widget.
+ *
+ * <p>
+ * Draws are counted where they're submitted through {@link RenderContext} and
+ * {@link ScreenDrawing}. A texture change is counted whenever a draw uses a
+ * different texture than the previous one; untextured fills, text, items and
+ * GUI sprites each count as their own texture. Optionally, the number of writes
+ * to each GUI pixel is counted in a CPU-side shadow buffer and shown as an
+ * overdraw heat map. The shadow buffer uses the draw rectangles in screen
+ * coordinates and the current scissor area, and ignores pose transformations.
+ *
+ * <p>
+ * The diagnostics are enabled with the {@code renderDiagnostics} and
+ * {@code overdrawHeatMap} options of the config.
+ */
+public final class RenderDiagnostics {
+    /** The texture key of untextured fills. */
+    public static final Object UNTEXTURED = "untextured";
+    /** The texture key of text. */
+    public static final Object TEXT = "text";
+    /** The texture key of item renders. */
+    public static final Object ITEMS = "items";
+    /** The texture key of GUI sprites, which share one atlas. */
+    public static final Object GUI_SPRITES = "gui_sprites";
+    private static final int WIDGET_LINES = 8;
+    private static final int[] HEAT_COLORS = { 0x00_000000, 0x00_000000, 0x55_00FF00, 0x66_FFFF00, 0x77_FF8000,
+            0x88_FF0000 };
+
+    private static boolean enabled = false;
+    private static boolean heatMap = false;
+    private static boolean paused = false;
+
+    private static int draws = 0;
+    private static int textureChanges = 0;
+    private static int flushes = 0;
+    private static int scissorChanges = 0;
+    @Nullable
+    private static Object lastTexture = null;
+    @Nullable
+    private static WWidget currentWidget = null;
+    private static final Map<WWidget, int[]> widgetCounts = new IdentityHashMap<>();
+    private static FrameStats lastFrame = new FrameStats(0, 0, 0, 0, 0);
+    private static List<WidgetStats> lastWidgets = List.of();
+
+    private static short[] writes = new short[0];
+    private static int bufferWidth = 0;
+    private static int bufferHeight = 0;
+    private static int clipX1 = 0;
+    private static int clipY1 = 0;
+    private static int clipX2 = Integer.MAX_VALUE;
+    private static int clipY2 = Integer.MAX_VALUE;
+
+    private RenderDiagnostics() {
+    }
+
+    /**
+     * {@return whether draws are counted}
+     */
+    public static boolean isEnabled() {
+        return enabled && !paused;
+    }
+
+    /**
+     * Starts counting a new frame. Called before a Cotton screen paints its
+     * widgets.
+     */
+    public static void beginFrame() {
+        LibGuiConfig config = LibGuiClient.config;
+        enabled = config != null && config.renderDiagnostics;
+        heatMap = enabled && config.overdrawHeatMap;
+        if (!enabled)
+            return;
+
+        draws = 0;
+        textureChanges = 0;
+        flushes = 0;
+        scissorChanges = 0;
+        lastTexture = null;
+        currentWidget = null;
+        widgetCounts.clear();
+        clipX1 = 0;
+        clipY1 = 0;
+        clipX2 = Integer.MAX_VALUE;
+        clipY2 = Integer.MAX_VALUE;
+
+        if (heatMap) {
+            var window = Minecraft.getInstance().getWindow();
+            int width = window.getGuiScaledWidth();
+            int height = window.getGuiScaledHeight();
+            if (width != bufferWidth || height != bufferHeight) {
+                bufferWidth = width;
+                bufferHeight = height;
+                writes = new short[width * height];
+            } else {
+                Arrays.fill(writes, (short) 0);
+            }
+        }
+    }
+
+    /**
+     * Attributes the following draws to a widget.
+     *
+     * @param widget the widget
+     * @return the previous widget, to be passed to {@link #exitWidget}
+     */
+    @Nullable
+    public static WWidget enterWidget(WWidget widget) {
+        if (!isEnabled())
+            return null;
+
+        WWidget previous = currentWidget;
+        currentWidget = widget;
+        return previous;
+    }
+
+    /**
+     * Stops attributing draws to the current widget.
+     *
+     * @param previous the widget returned by {@link #enterWidget}
+     */
+    public static void exitWidget(@Nullable WWidget previous) {
+        if (isEnabled())
+            currentWidget = previous;
+    }
+
+    /**
+     * Counts a draw call.
+     *
+     * @param texture the texture or texture key of the draw
+     * @param x       the X coordinate of the drawn area
+     * @param y       the Y coordinate of the drawn area
+     * @param width   the width of the drawn area
+     * @param height  the height of the drawn area
+     */
+    public static void draw(Object texture, int x, int y, int width, int height) {
+        if (!isEnabled())
+            return;
+
+        countDraw(texture);
+        if (heatMap)
+            paint(x, y, width, height);
+    }
+
+    /**
+     * Counts a batched draw call of textured quads, as used by
+     * {@link ScreenDrawing#texturedQuads}.
+     *
+     * @param texture the texture of the draw
+     * @param x       the X offset of the quads
+     * @param y       the Y offset of the quads
+     * @param quads   the packed quads
+     */
+    public static void drawQuads(Object texture, int x, int y, float[] quads) {
+        if (!isEnabled())
+            return;
+
+        countDraw(texture);
+        if (heatMap) {
+            for (int i = 0; i + 3 < quads.length; i += 8) {
+                paint(x + (int) quads[i], y + (int) quads[i + 1], (int) quads[i + 2], (int) quads[i + 3]);
+            }
+        }
+    }
+
+    private static void countDraw(Object texture) {
+        draws++;
+        boolean changed = !Objects.equals(texture, lastTexture);
+        if (changed) {
+            textureChanges++;
+            lastTexture = texture;
+        }
+
+        if (currentWidget != null) {
+            int[] counts = widgetCounts.computeIfAbsent(currentWidget, widget -> new int[2]);
+            counts[0]++;
+            if (changed)
+                counts[1]++;
+        }
+    }
+
+    private static void paint(int x, int y, int width, int height) {
+        int x1 = Math.max(Math.max(x, clipX1), 0);
+        int y1 = Math.max(Math.max(y, clipY1), 0);
+        int x2 = Math.min(Math.min(x + width, clipX2), bufferWidth);
+        int y2 = Math.min(Math.min(y + height, clipY2), bufferHeight);
+        for (int row = y1; row < y2; row++) {
+            int offset = row * bufferWidth;
+            for (int column = x1; column < x2; column++) {
+                if (writes[offset + column] < Short.MAX_VALUE)
+                    writes[offset + column]++;
+            }
+        }
+    }
+
+    /**
+     * Counts a flush of buffered draws.
+     */
+    public static void flush() {
+        if (isEnabled())
+            flushes++;
+    }
+
+    /**
+     * Counts a scissor change.
+     *
+     * @param x      the X coordinate of the scissor area, in GUI pixels
+     * @param y      the Y coordinate of the scissor area, in GUI pixels
+     * @param width  the width of the scissor area, or -1 if scissoring is off
+     * @param height the height of the scissor area, or -1 if scissoring is off
+     */
+    public static void scissor(int x, int y, int width, int height) {
+        if (!isEnabled())
+            return;
+
+        scissorChanges++;
+        if (width < 0) {
+            clipX1 = 0;
+            clipY1 = 0;
+            clipX2 = Integer.MAX_VALUE;
+            clipY2 = Integer.MAX_VALUE;
+        } else {
+            clipX1 = x;
+            clipY1 = y;
+            clipX2 = x + width;
+            clipY2 = y + height;
+        }
+    }
+
+    /**
+     * Finishes the frame and renders the diagnostics overlay. Called after a
+     * Cotton screen painted everything else.
+     *
+     * @param context the render context
+     */
+    public static void render(RenderContext context) {
+        if (!enabled)
+            return;
+
+        int maxWrites = 0;
+        int overdrawnPixels = 0;
+        if (heatMap) {
+            for (short count : writes) {
+                if (count > maxWrites)
+                    maxWrites = count;
+                if (count > 1)
+                    overdrawnPixels++;
+            }
+        }
+        lastFrame = new FrameStats(draws, textureChanges, flushes, scissorChanges, overdrawnPixels);
+        lastWidgets = collectWidgets();
+
+        // The overlay itself isn't counted
+        paused = true;
+        try {
+            if (heatMap)
+                renderHeatMap(context);
+            renderStats(context, maxWrites);
+        } finally {
+            paused = false;
+        }
+    }
+
+    private static List<WidgetStats> collectWidgets() {
+        List<WidgetStats> widgets = new ArrayList<>(widgetCounts.size());
+        for (Map.Entry<WWidget, int[]> entry : widgetCounts.entrySet()) {
+            widgets.add(new WidgetStats(entry.getKey().getClass().getSimpleName(), entry.getValue()[0],
+                    entry.getValue()[1]));
+        }
+        widgets.sort((a, b) -> Integer.compare(b.draws(), a.draws()));
+        return widgets;
+    }
+
+    private static void renderHeatMap(RenderContext context) {
+        for (int row = 0; row < bufferHeight; row++) {
+            int offset = row * bufferWidth;
+            int start = 0;
+            int color = heatColor(writes[offset]);
+            for (int column = 1; column <= bufferWidth; column++) {
+                int next = column < bufferWidth ? heatColor(writes[offset + column]) : -1;
+                if (next != color) {
+                    // Consecutive pixels with the same color are filled at once
+                    if (color != 0)
+                        context.fill(start, row, column, row + 1, color);
+                    start = column;
+                    color = next;
+                }
+            }
+        }
+    }
+
+    private static int heatColor(int writes) {
+        return HEAT_COLORS[Math.min(writes, HEAT_COLORS.length - 1)];
+    }
+
+    private static void renderStats(RenderContext context, int maxWrites) {
+        var font = Minecraft.getInstance().font;
+        List<String> lines = new ArrayList<>(WIDGET_LINES + 2);
+        lines.add(String.format(Locale.ROOT, "draws %d, texture changes %d, flushes %d, scissors %d",
+                lastFrame.draws(), lastFrame.textureChanges(), lastFrame.flushes(), lastFrame.scissorChanges()));
+        if (heatMap)
+            lines.add(String.format(Locale.ROOT, "overdrawn pixels %d, max writes %d", lastFrame.overdrawnPixels(),
+                    maxWrites));
+        for (int i = 0; i < lastWidgets.size() && i < WIDGET_LINES; i++) {
+            WidgetStats widget = lastWidgets.get(i);
+            lines.add(widget.widgetClass() + ": " + widget.draws() + " draws, " + widget.textureChanges()
+                    + " texture changes");
+        }
+
+        int y = bufferHeight > 0 ? bufferHeight : Minecraft.getInstance().getWindow().getGuiScaledHeight();
+        y -= 2 + lines.size() * font.lineHeight;
+        for (String line : lines) {
+            ScreenDrawing.coloredRect(context, 2, y, font.width(line), font.lineHeight, 0x88_000000);
+            ScreenDrawing.drawString(context, line, 2, y, 0xFF_FFFFFF);
+            y += font.lineHeight;
+        }
+    }
+
+    /**
+     * {@return the counts of the last finished frame}
+     */
+    public static FrameStats getLastFrame() {
+        return lastFrame;
+    }
+
+    /**
+     * {@return the counts of the widgets in the last finished frame, most draws
+     * first}
+     */
+    public static List<WidgetStats> getLastWidgets() {
+        return lastWidgets;
+    }
+
+    /**
+     * The counts of a frame.
+     *
+     * @param draws           the number of draw calls
+     * @param textureChanges  the number of texture changes between draws
+     * @param flushes         the number of buffer flushes
+     * @param scissorChanges  the number of scissor changes
+     * @param overdrawnPixels the number of GUI pixels written more than once, or 0
+     *                        if the heat map is disabled
+     */
+    public record FrameStats(int draws, int textureChanges, int flushes, int scissorChanges,
+            int overdrawnPixels) {
+    }
+
+    /**
+     * The counts of a widget in a frame, excluding its child widgets.
+     *
+     * @param widgetClass    the simple class name of the widget
+     * @param draws          the number of draw calls
+     * @param textureChanges the number of texture changes between draws
+     */
+    public record WidgetStats(String widgetClass, int draws, int textureChanges) {
+    }
+}
@@ -0,0 +1,99 @@
+package dev.tr7zw.trender.gui.impl.client;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Cached quad geometry for item slot grids, in the packed format used by
+ * {@link dev.tr7zw.trender.gui.client.ScreenDrawing#texturedQuads}.
+ *
+ * <p>
+ * The geometry of a grid only depends on its size and whether it uses big
+ * slots, so it is built once per shape and shared between all slot widgets.
+ * Only accessed from the render thread.
+ */
+@UtilityClass
+public class SlotGridGeometry {
+    /** The size of the slot texture in pixels. */
+    public static final int TEXTURE_SIZE = 64;
+    private static final float PX = 1f / TEXTURE_SIZE;
+
+    private static final float NORMAL_U1 = 0, NORMAL_U2 = 18 * PX;
+    private static final float NORMAL_V1 = 0, NORMAL_V2 = 18 * PX;
+    private static final float NORMAL_FOCUS_V1 = 26 * PX, NORMAL_FOCUS_V2 = 44 * PX;
+    private static final float BIG_U1 = 18 * PX, BIG_U2 = 44 * PX;
+    private static final float BIG_V1 = 0, BIG_V2 = 26 * PX;
+    private static final float BIG_FOCUS_V1 = 26 * PX, BIG_FOCUS_V2 = 52 * PX;
+
+    private static final Long2ObjectMap<float[]> GRIDS = new Long2ObjectOpenHashMap<>();
+    private static final float[] EMPTY = new float[0];
+    private static final float[] FOCUS_QUAD = new float[8];
+
+    /**
+     * {@return the background quads of a slot grid}
+     *
+     * @param slotsWide the number of slot columns
+     * @param slotsHigh the number of slot rows
+     * @param big       whether the grid uses big slots
+     */
+    public static float[] getGrid(int slotsWide, int slotsHigh, boolean big) {
+        if (slotsWide <= 0 || slotsHigh <= 0)
+            return EMPTY;
+
+        long key = ((long) slotsWide << 32) | ((long) slotsHigh << 1) | (big ? 1 : 0);
+        float[] grid = GRIDS.get(key);
+        if (grid == null) {
+            grid = buildGrid(slotsWide, slotsHigh, big);
+            GRIDS.put(key, grid);
+        }
+        return grid;
+    }
+
+    /**
+     * {@return the focus overlay quad of a single slot} The returned array is
+     * reused by the next call.
+     *
+     * @param x   the column of the focused slot
+     * @param y   the row of the focused slot
+     * @param big whether the grid uses big slots
+     */
+    public static float[] getFocusQuad(int x, int y, boolean big) {
+        float[] quad = FOCUS_QUAD;
+        if (big) {
+            put(quad, 0, x * 18 - 4, y * 18 - 4, 26, BIG_U1, BIG_FOCUS_V1, BIG_U2, BIG_FOCUS_V2);
+        } else {
+            put(quad, 0, x * 18, y * 18, 18, NORMAL_U1, NORMAL_FOCUS_V1, NORMAL_U2, NORMAL_FOCUS_V2);
+        }
+        return quad;
+    }
+
+    private static float[] buildGrid(int slotsWide, int slotsHigh, boolean big) {
+        float[] grid = new float[slotsWide * slotsHigh * 8];
+        int offset = 0;
+        // Same order as the original per-cell loop so overlapping big slots stack identically
+        for (int x = 0; x < slotsWide; x++) {
+            for (int y = 0; y < slotsHigh; y++) {
+                if (big) {
+                    put(grid, offset, x * 18 - 4, y * 18 - 4, 26, BIG_U1, BIG_V1, BIG_U2, BIG_V2);
+                } else {
+                    put(grid, offset, x * 18, y * 18, 18, NORMAL_U1, NORMAL_V1, NORMAL_U2, NORMAL_V2);
+                }
+                offset += 8;
+            }
+        }
+        return grid;
+    }
+
+    private static void put(float[] quads, int offset, int x, int y, int size, float u1, float v1, float u2,
+            float v2) {
+        quads[offset] = x;
+        quads[offset + 1] = y;
+        quads[offset + 2] = size;
+        quads[offset + 3] = size;
+        quads[offset + 4] = u1;
+        quads[offset + 5] = v1;
+        quads[offset + 6] = u2;
+        quads[offset + 7] = v2;
+    }
+}
@@ -0,0 +1,357 @@
+package dev.tr7zw.trender.gui.impl.client;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+import dev.tr7zw.trender.gui.client.RenderContext;
+import dev.tr7zw.trender.gui.client.ScreenDrawing;
+import dev.tr7zw.trender.gui.widget.WWidget;
+import net.minecraft.client.Minecraft;
+
+/**
+ * An opt-in profiler that measures the paint, layout, tick and input dispatch
+ * time of each widget.
+ *
+ * <p>
+ * Measurements are nested: a widget measured while another one is being
+ * measured becomes its child in the profile tree, so each node has a total
+ * time and a self time that excludes its children. Each node keeps the totals
+ * of its last {@value #SAMPLES} samples in a preallocated ring buffer. When the
+ * profiler is disabled, {@link #begin} and {@link #end} only check a static
+ * flag.
+ *
+ * <p>
+ * The profile is only recorded on the render thread. On other threads,
+ * {@link #begin} returns without touching the profiler state, and so does
+ * {@link #end} with the returned token.
+ *
+ * <p>
+ * The profile is shown as an overlay on Cotton screens when the
+ * {@code widgetProfiler} option of the config is enabled, and can be written
+ * as a text report with {@link #exportReport(Path)}.
+ */
+public final class WidgetProfiler {
+    /** The number of samples kept per node. */
+    public static final int SAMPLES = 128;
+    private static final int MAX_DEPTH = 256;
+    private static final int OVERLAY_LINES = 16;
+    private static final long OVERLAY_REFRESH_NANOS = 500_000_000L;
+    private static final int NOT_MEASURED = -1;
+    private static final int TOO_DEEP = -2;
+
+    private static boolean enabled = false;
+    private static boolean trackAllocations = false;
+    @Nullable
+    private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = findAllocationBean();
+
+    private static final Node ROOT = new Node(null, null);
+    private static final Node[] stack = new Node[MAX_DEPTH];
+    private static final long[] startTimes = new long[MAX_DEPTH];
+    private static final long[] childTimes = new long[MAX_DEPTH];
+    private static final long[] startAllocations = new long[MAX_DEPTH];
+    private static int depth = 0;
+    private static int skippedDepth = 0;
+
+    private static List<String> overlayLines = List.of();
+    private static long overlayRefreshed = 0;
+
+    /**
+     * The profiled phases.
+     */
+    public enum Phase {
+        PAINT, LAYOUT, TICK, INPUT
+    }
+
+    private WidgetProfiler() {
+    }
+
+    @Nullable
+    private static com.sun.management.ThreadMXBean findAllocationBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported())
+                return sunBean;
+        } catch (Throwable e) {
+            // Not available on this JVM
+        }
+        return null;
+    }
+
+    /**
+     * {@return whether the profiler is enabled}
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the profiler. Enabling it starts a new profile.
+     *
+     * @param enabled true to enable the profiler
+     */
+    public static void setEnabled(boolean enabled) {
+        if (enabled && !WidgetProfiler.enabled)
+            reset();
+        WidgetProfiler.enabled = enabled;
+    }
+
+    /**
+     * Sets whether allocated bytes are measured, if the JVM supports it.
+     * Measuring allocations makes the profiler itself noticeably slower.
+     *
+     * @param trackAllocations true to measure allocations
+     */
+    public static void setTrackAllocations(boolean trackAllocations) {
+        WidgetProfiler.trackAllocations = trackAllocations && ALLOCATION_BEAN != null;
+    }
+
+    /**
+     * Clears the profile.
+     */
+    public static void reset() {
+        ROOT.children.clear();
+        ROOT.lookup.clear();
+        depth = 0;
+        skippedDepth = 0;
+        overlayLines = List.of();
+    }
+
+    /**
+     * Starts measuring a widget. Every call must be followed by a call to
+     * {@link #end(int)} with the returned token, even if the profiler was
+     * disabled in the meantime.
+     *
+     * @param widget the widget
+     * @param phase  the phase
+     * @return the measurement token
+     */
+    public static int begin(WWidget widget, Phase phase) {
+        if (!enabled || !isOnRenderThread())
+            return NOT_MEASURED;
+        if (depth == MAX_DEPTH) {
+            skippedDepth++;
+            return TOO_DEEP;
+        }
+
+        Node parent = depth == 0 ? ROOT : stack[depth - 1];
+        stack[depth] = parent.child(widget, phase);
+        childTimes[depth] = 0;
+        if (trackAllocations)
+            startAllocations[depth] = ALLOCATION_BEAN.getCurrentThreadAllocatedBytes();
+        startTimes[depth] = System.nanoTime();
+        return depth++;
+    }
+
+    /**
+     * Stops measuring a widget.
+     *
+     * @param token the token returned by {@link #begin}
+     */
+    public static void end(int token) {
+        // Unmeasured tokens also come from other threads, which must not touch the state
+        if (token == NOT_MEASURED)
+            return;
+        if (token == TOO_DEEP) {
+            if (skippedDepth > 0)
+                skippedDepth--;
+            return;
+        }
+
+        long elapsed = System.nanoTime() - startTimes[token];
+        // Unbalanced calls close the measurements nested in this one
+        depth = token;
+        Node node = stack[token];
+        stack[token] = null;
+        long allocated = trackAllocations
+                ? ALLOCATION_BEAN.getCurrentThreadAllocatedBytes() - startAllocations[token]
+                : 0;
+        node.record(elapsed, elapsed - childTimes[token], allocated);
+        if (token > 0)
+            childTimes[token - 1] += elapsed;
+    }
+
+    private static boolean isOnRenderThread() {
+        return Minecraft.getInstance().isSameThread();
+    }
+
+    /**
+     * Renders the profile overlay if it's enabled in the config.
+     *
+     * @param context the render context
+     */
+    public static void render(RenderContext context) {
+        boolean overlay = LibGuiClient.config != null && LibGuiClient.config.widgetProfiler;
+        setEnabled(overlay);
+        if (!overlay)
+            return;
+
+        long now = System.nanoTime();
+        if (now - overlayRefreshed >= OVERLAY_REFRESH_NANOS) {
+            overlayRefreshed = now;
+            overlayLines = buildOverlay();
+        }
+
+        Minecraft client = Minecraft.getInstance();
+        var font = client.font;
+        int x = client.getWindow().getGuiScaledWidth() - 2;
+        int y = 2;
+        for (String line : overlayLines) {
+            int width = font.width(line);
+            ScreenDrawing.coloredRect(context, x - width, y, width, font.lineHeight, 0x88_000000);
+            ScreenDrawing.drawString(context, line, x - width, y, 0xFF_FFFFFF);
+            y += font.lineHeight;
+        }
+    }
+
+    private static List<String> buildOverlay() {
+        List<Node> nodes = new ArrayList<>();
+        collect(ROOT, nodes);
+        nodes.sort(Comparator.comparingLong(Node::averageSelfNanos).reversed());
+
+        List<String> lines = new ArrayList<>(OVERLAY_LINES + 1);
+        lines.add("Widget profile (self / total per call)");
+        for (int i = 0; i < nodes.size() && i < OVERLAY_LINES; i++) {
+            Node node = nodes.get(i);
+            lines.add(String.format(Locale.ROOT, "%s %s %s / %s", node.widget.getClass().getSimpleName(),
+                    node.phase, formatNanos(node.averageSelfNanos()), formatNanos(node.averageTotalNanos())));
+        }
+        return lines;
+    }
+
+    private static void collect(Node node, List<Node> out) {
+        for (Node child : node.children) {
+            out.add(child);
+            collect(child, out);
+        }
+    }
+
+    /**
+     * Writes the profile tree as a text report.
+     *
+     * @param file the report file
+     * @throws IOException if the report could not be written
+     */
+    public static void exportReport(Path file) throws IOException {
+        Files.writeString(file, createReport(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * {@return the profile tree as a text report}
+     */
+    public static String createReport() {
+        StringBuilder report = new StringBuilder();
+        report.append("# TRender widget profile\n");
+        report.append("# widget phase: calls, total, self, average total, average self (last ").append(SAMPLES)
+                .append(" samples)");
+        if (trackAllocations)
+            report.append(", allocated bytes");
+        report.append('\n');
+        List<Node> roots = new ArrayList<>(ROOT.children);
+        roots.sort(Comparator.comparingLong((Node node) -> node.totalNanos).reversed());
+        for (Node node : roots) {
+            appendNode(report, node, 0);
+        }
+        return report.toString();
+    }
+
+    private static void appendNode(StringBuilder report, Node node, int indent) {
+        report.append("  ".repeat(indent));
+        report.append(node.widget.getClass().getName()).append(' ').append(node.phase).append(": ");
+        report.append(node.calls).append(" calls, ");
+        report.append(formatNanos(node.totalNanos)).append(", ");
+        report.append(formatNanos(node.selfNanos)).append(" self, ");
+        report.append(formatNanos(node.averageTotalNanos())).append(" avg, ");
+        report.append(formatNanos(node.averageSelfNanos())).append(" avg self");
+        if (trackAllocations)
+            report.append(", ").append(node.allocatedBytes).append(" B");
+        report.append('\n');
+
+        List<Node> children = new ArrayList<>(node.children);
+        children.sort(Comparator.comparingLong((Node child) -> child.totalNanos).reversed());
+        for (Node child : children) {
+            appendNode(report, child, indent + 1);
+        }
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 10_000)
+            return nanos + "ns";
+        if (nanos < 10_000_000)
+            return String.format(Locale.ROOT, "%.1fus", nanos / 1_000.0);
+        return String.format(Locale.ROOT, "%.1fms", nanos / 1_000_000.0);
+    }
+
+    private static final class Node {
+        final WWidget widget;
+        final Phase phase;
+        final Map<WWidget, Node[]> lookup = new IdentityHashMap<>();
+        final List<Node> children = new ArrayList<>();
+        final long[] totalSamples = new long[SAMPLES];
+        final long[] selfSamples = new long[SAMPLES];
+        int sampleIndex = 0;
+        int sampleCount = 0;
+        long calls = 0;
+        long totalNanos = 0;
+        long selfNanos = 0;
+        long allocatedBytes = 0;
+
+        Node(WWidget widget, Phase phase) {
+            this.widget = widget;
+            this.phase = phase;
+        }
+
+        Node child(WWidget widget, Phase phase) {
+            Node[] byPhase = lookup.computeIfAbsent(widget, w -> new Node[Phase.values().length]);
+            Node child = byPhase[phase.ordinal()];
+            if (child == null) {
+                child = new Node(widget, phase);
+                byPhase[phase.ordinal()] = child;
+                children.add(child);
+            }
+            return child;
+        }
+
+        void record(long total, long self, long allocated) {
+            calls++;
+            totalNanos += total;
+            selfNanos += self;
+            allocatedBytes += allocated;
+            totalSamples[sampleIndex] = total;
+            selfSamples[sampleIndex] = self;
+            sampleIndex = (sampleIndex + 1) % SAMPLES;
+            if (sampleCount < SAMPLES)
+                sampleCount++;
+        }
+
+        long averageTotalNanos() {
+            return average(totalSamples);
+        }
+
+        long averageSelfNanos() {
+            return average(selfSamples);
+        }
+
+        private long average(long[] samples) {
+            if (sampleCount == 0)
+                return 0;
+
+            long sum = 0;
+            for (int i = 0; i < sampleCount; i++) {
+                sum += samples[i];
+            }
+            return sum / sampleCount;
+        }
+    }
+}
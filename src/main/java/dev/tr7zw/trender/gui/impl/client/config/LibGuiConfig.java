@@ -9,4 +9,7 @@ public class LibGuiConfig {
     //#else
     //$$ public GuiStyle style = GuiStyle.VANILLA_OLD;
     //#endif
+    public boolean widgetProfiler = false;
+    public boolean renderDiagnostics = false;
+    public boolean overdrawHeatMap = false;
 }
@@ -0,0 +1,39 @@
+package dev.tr7zw.trender.gui.impl.jfr;
+
+import dev.tr7zw.trender.gui.widget.WPanel;
+import dev.tr7zw.trender.gui.widget.WWidget;
+import lombok.experimental.UtilityClass;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Helpers for filling in GUI events. Only call these after checking
+ * {@link jdk.jfr.Event#shouldCommit()}, so they cost nothing when the events
+ * are disabled.
+ */
+@UtilityClass
+public class GuiEvents {
+    /**
+     * Counts the widgets in a widget tree.
+     *
+     * @param root the root widget
+     * @return the number of widgets, including the root
+     */
+    public int countWidgets(@Nullable WWidget root) {
+        if (root == null)
+            return 0;
+        if (root instanceof WPanel panel)
+            return 1 + panel.streamChildren().mapToInt(GuiEvents::countWidgets).sum();
+        return 1;
+    }
+
+    /**
+     * Gets the class name of an object for an event field.
+     *
+     * @param object the object
+     * @return the class name, or null if the object is null
+     */
+    @Nullable
+    public String className(@Nullable Object object) {
+        return object != null ? object.getClass().getName() : null;
+    }
+}
@@ -0,0 +1,23 @@
+package dev.tr7zw.trender.gui.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("dev.tr7zw.trender.PaintFrame")
+@Label("Paint Frame")
+@Description("The widgets of a Cotton screen were painted")
+@Category({ "TRender", "GUI" })
+@Enabled(false)
+@StackTrace(false)
+public final class PaintFrameEvent extends Event {
+    @Label("Screen Class")
+    public String screenClass;
+    @Label("Subtree Size")
+    @Description("The number of widgets in the root panel")
+    public int subtreeSize;
+}
@@ -0,0 +1,25 @@
+package dev.tr7zw.trender.gui.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("dev.tr7zw.trender.QuickMove")
+@Label("Quick Move")
+@Description("A stack was quick moved in a synced GUI")
+@Category({ "TRender", "GUI" })
+@Enabled(false)
+@StackTrace(false)
+public final class QuickMoveEvent extends Event {
+    @Label("Description Class")
+    public String descriptionClass;
+    @Label("Slot")
+    public int slot;
+    @Label("Moved")
+    @Description("Whether any items were moved")
+    public boolean moved;
+}
@@ -0,0 +1,47 @@
+package dev.tr7zw.trender.gui.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("dev.tr7zw.trender.Scissor")
+@Label("Scissor")
+@Description("A scissor frame was pushed or popped")
+@Category({ "TRender", "GUI" })
+@Enabled(false)
+@StackTrace(false)
+public final class ScissorEvent extends Event {
+    @Label("Action")
+    public String action;
+    @Label("Depth")
+    @Description("The number of scissor frames on the stack after the action")
+    public int depth;
+    @Label("Width")
+    public int width;
+    @Label("Height")
+    public int height;
+
+    /**
+     * Records a scissor stack change.
+     *
+     * @param action {@code "push"} or {@code "pop"}
+     * @param depth  the stack depth after the change
+     * @param width  the width of the pushed or popped frame
+     * @param height the height of the pushed or popped frame
+     */
+    public static void emit(String action, int depth, int width, int height) {
+        ScissorEvent event = new ScissorEvent();
+        if (!event.isEnabled())
+            return;
+
+        event.action = action;
+        event.depth = depth;
+        event.width = width;
+        event.height = height;
+        event.commit();
+    }
+}
@@ -0,0 +1,50 @@
+package dev.tr7zw.trender.gui.impl.jfr;
+
+import org.jetbrains.annotations.Nullable;
+
+import dev.tr7zw.trender.gui.GuiDescription;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("dev.tr7zw.trender.ScreenLifecycle")
+@Label("Screen Lifecycle")
+@Description("A Cotton screen was initialized or removed")
+@Category({ "TRender", "GUI" })
+@Enabled(false)
+@StackTrace(false)
+public final class ScreenLifecycleEvent extends Event {
+    @Label("Action")
+    public String action;
+    @Label("Screen Class")
+    public String screenClass;
+    @Label("Description Class")
+    public String descriptionClass;
+    @Label("Subtree Size")
+    @Description("The number of widgets in the root panel")
+    public int subtreeSize;
+
+    /**
+     * Records that a screen was initialized, which happens when it's opened and
+     * resized, or removed.
+     *
+     * @param action      {@code "init"} or {@code "removed"}
+     * @param screen      the screen
+     * @param description the GUI description of the screen
+     */
+    public static void emit(String action, Object screen, @Nullable GuiDescription description) {
+        ScreenLifecycleEvent event = new ScreenLifecycleEvent();
+        if (!event.isEnabled())
+            return;
+
+        event.action = action;
+        event.screenClass = GuiEvents.className(screen);
+        event.descriptionClass = GuiEvents.className(description);
+        event.subtreeSize = description != null ? GuiEvents.countWidgets(description.getRootPanel()) : 0;
+        event.commit();
+    }
+}
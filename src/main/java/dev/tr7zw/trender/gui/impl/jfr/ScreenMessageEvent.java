@@ -0,0 +1,27 @@
+package dev.tr7zw.trender.gui.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("dev.tr7zw.trender.ScreenMessage")
+@Label("Screen Message")
+@Description("A screen message was received and handled")
+@Category({ "TRender", "GUI" })
+@Enabled(false)
+@StackTrace(false)
+public final class ScreenMessageEvent extends Event {
+    @Label("Message")
+    public String message;
+    @Label("Side")
+    @Description("The side that received the message")
+    public String side;
+    @Label("Size")
+    @DataAmount
+    public int size;
+}
@@ -0,0 +1,27 @@
+package dev.tr7zw.trender.gui.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("dev.tr7zw.trender.ScreenMessageFrame")
+@Label("Screen Message Frame")
+@Description("A frame of screen messages was sent")
+@Category({ "TRender", "GUI" })
+@Enabled(false)
+@StackTrace(false)
+public final class ScreenMessageFrameEvent extends Event {
+    @Label("Side")
+    @Description("The side that sent the frame")
+    public String side;
+    @Label("Messages")
+    public int messages;
+    @Label("Size")
+    @DataAmount
+    public int size;
+}
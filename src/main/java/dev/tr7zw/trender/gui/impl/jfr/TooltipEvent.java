@@ -0,0 +1,22 @@
+package dev.tr7zw.trender.gui.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("dev.tr7zw.trender.Tooltip")
+@Label("Tooltip Build")
+@Description("The tooltip of a widget was built")
+@Category({ "TRender", "GUI" })
+@Enabled(false)
+@StackTrace(false)
+public final class TooltipEvent extends Event {
+    @Label("Widget Class")
+    public String widgetClass;
+    @Label("Lines")
+    public int lines;
+}
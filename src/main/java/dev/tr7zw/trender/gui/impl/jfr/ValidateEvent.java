@@ -0,0 +1,23 @@
+package dev.tr7zw.trender.gui.impl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("dev.tr7zw.trender.Validate")
+@Label("Root Validate")
+@Description("The root panel of a GUI was validated and laid out")
+@Category({ "TRender", "GUI" })
+@Enabled(false)
+@StackTrace(false)
+public final class ValidateEvent extends Event {
+    @Label("Root Class")
+    public String rootClass;
+    @Label("Subtree Size")
+    @Description("The number of widgets in the root panel")
+    public int subtreeSize;
+}
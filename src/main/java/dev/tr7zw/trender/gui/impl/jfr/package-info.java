@@ -0,0 +1,8 @@
+/**
+ * Java Flight Recorder events for GUI work. All events are disabled by default
+ * and can be enabled in a recording's settings.
+ */
+@ApiStatus.Internal
+package dev.tr7zw.trender.gui.impl.jfr;
+
+import org.jetbrains.annotations.ApiStatus;
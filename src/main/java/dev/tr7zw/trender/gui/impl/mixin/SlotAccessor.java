@@ -0,0 +1,22 @@
+package dev.tr7zw.trender.gui.impl.mixin;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Mutable;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+import net.minecraft.world.inventory.Slot;
+
+@Mixin(Slot.class)
+public interface SlotAccessor {
+    @Mutable
+    @Accessor("x")
+    void libgui$setX(int x);
+
+    @Mutable
+    @Accessor("y")
+    void libgui$setY(int y);
+
+    @Mutable
+    @Accessor("slot")
+    void libgui$setSlot(int slot);
+}
@@ -0,0 +1,18 @@
+package dev.tr7zw.trender.gui.impl.mixin.client;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import dev.tr7zw.trender.gui.widget.data.PropertyUpdateQueue;
+import net.minecraft.client.Minecraft;
+
+@Mixin(Minecraft.class)
+abstract class MinecraftMixin {
+
+    @Inject(method = "runTick", at = @At("HEAD"))
+    private void onFrameStart(boolean renderLevel, CallbackInfo info) {
+        PropertyUpdateQueue.drain();
+    }
+}
@@ -45,7 +45,13 @@ public class ConfigGui extends AbstractConfigScreen {
         // options page
         List<OptionInstance> options = new ArrayList<>();
         options.add(getEnumOption("text.trender.style", GuiStyle.class, () -> LibGuiClient.config.style,
-                (v) -> LibGuiClient.config.style = v));
+                (v) -> LibGuiClient.updateConfig(config -> config.style = v)));
+        options.add(getOnOffOption("text.trender.widgetProfiler", () -> LibGuiClient.config.widgetProfiler,
+                (v) -> LibGuiClient.updateConfig(config -> config.widgetProfiler = v)));
+        options.add(getOnOffOption("text.trender.renderDiagnostics", () -> LibGuiClient.config.renderDiagnostics,
+                (v) -> LibGuiClient.updateConfig(config -> config.renderDiagnostics = v)));
+        options.add(getOnOffOption("text.trender.overdrawHeatMap", () -> LibGuiClient.config.overdrawHeatMap,
+                (v) -> LibGuiClient.updateConfig(config -> config.overdrawHeatMap = v)));
 
         var optionList = createOptionList(options);
         optionList.setGap(-1);
@@ -128,8 +134,13 @@ public class ConfigGui extends AbstractConfigScreen {
         LibGuiClient.saveConfig(LibGuiClient.config);
     }
 
+    @Override
+    protected void onOptionChanged() {
+        save();
+    }
+
     @Override
     public void reset() {
-        LibGuiClient.config = new LibGuiConfig();
+        LibGuiClient.setConfig(new LibGuiConfig());
     }
 }
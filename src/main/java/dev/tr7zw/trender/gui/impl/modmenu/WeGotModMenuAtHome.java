@@ -1,10 +1,13 @@
 package dev.tr7zw.trender.gui.impl.modmenu;
 
+import java.util.Iterator;
+import java.util.List;
 import java.util.function.Function;
 
 import dev.tr7zw.transition.ClientTRansitionMod;
 import dev.tr7zw.transition.mc.ComponentProvider;
 import dev.tr7zw.trender.gui.client.BackgroundPainter;
+import dev.tr7zw.trender.gui.client.ConfigScreenMetadata;
 import dev.tr7zw.trender.gui.client.LightweightGuiDescription;
 import dev.tr7zw.trender.gui.widget.WButton;
 import dev.tr7zw.trender.gui.widget.WGridPanel;
@@ -15,16 +18,28 @@ import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.network.chat.CommonComponents;
 
 public class WeGotModMenuAtHome extends LightweightGuiDescription {
+    private final Iterator<Function<Screen, Screen>> prewarm;
 
     public WeGotModMenuAtHome() {
-        WGridPanel root = new WGridPanel(20);
+        WGridPanel root = new WGridPanel(20) {
+            @Override
+            public void tick() {
+                super.tick();
+                prewarmNext();
+            }
+        };
         root.setInsets(Insets.ROOT_PANEL);
         setRootPanel(root);
 
-        var buttonList = new WListPanel<Function<Screen, Screen>, WButton>(
-                ClientTRansitionMod.configScreenManager.getConfigScreens(), () -> new WButton(ComponentProvider.EMPTY),
-                (s, l) -> {
-                    l.setLabel(s.apply(null).getTitle());
+        // Screens are only constructed on click, or once to read the title of factories without metadata
+        List<Function<Screen, Screen>> screens = ConfigScreenMetadata
+                .sort(ClientTRansitionMod.configScreenManager.getConfigScreens());
+        prewarm = screens.iterator();
+        var buttonList = new WListPanel<Function<Screen, Screen>, WButton>(screens,
+                () -> new WButton(ComponentProvider.EMPTY), (s, l) -> {
+                    ConfigScreenMetadata.Entry entry = ConfigScreenMetadata.resolve(s);
+                    l.setLabel(entry.title());
+                    l.setIcon(entry.icon());
                     l.setOnClick(() -> {
                         Minecraft.getInstance().setScreen(s.apply(Minecraft.getInstance().screen));
                     });
@@ -44,4 +59,17 @@ public class WeGotModMenuAtHome extends LightweightGuiDescription {
         root.validate(this);
     }
 
+    private void prewarmNext() {
+        // Resolves one unknown title per tick, so scrolling doesn't construct screens
+        if (!ConfigScreenMetadata.isPrewarmEnabled())
+            return;
+        while (prewarm.hasNext()) {
+            Function<Screen, Screen> factory = prewarm.next();
+            if (ConfigScreenMetadata.get(factory) == null) {
+                ConfigScreenMetadata.resolve(factory);
+                return;
+            }
+        }
+    }
+
 }
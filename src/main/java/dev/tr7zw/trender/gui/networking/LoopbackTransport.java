@@ -0,0 +1,113 @@
+package dev.tr7zw.trender.gui.networking;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import dev.tr7zw.trender.gui.SyncedGuiDescription;
+import dev.tr7zw.trender.gui.impl.ScreenNetworkingImpl;
+
+/**
+ * A transport that delivers screen messages between two GUI descriptions in the
+ * same process, without a network connection.
+ *
+ * <p>
+ * One description of each connected pair acts as the server and the other one
+ * as the client, regardless of the world they were created in. Frames are
+ * delivered immediately on the sending thread. This is mainly useful for
+ * testing screen messages without a server:
+ *
+ * <pre>
+ * {@code
+ * LoopbackTransport loopback = LoopbackTransport.install();
+ * loopback.connect(serverDescription, clientDescription);
+ * // ... send and receive messages ...
+ * LoopbackTransport.uninstall();
+ * }
+ * </pre>
+ */
+public final class LoopbackTransport implements ScreenMessageTransport {
+    private final Map<SyncedGuiDescription, SyncedGuiDescription> peers = new IdentityHashMap<>();
+    private final Map<SyncedGuiDescription, NetworkSide> sides = new IdentityHashMap<>();
+    private long sentFrames = 0;
+    private long sentBytes = 0;
+
+    /**
+     * Creates a loopback transport and installs it as the screen message
+     * transport.
+     *
+     * @return the installed transport
+     */
+    public static LoopbackTransport install() {
+        LoopbackTransport transport = new LoopbackTransport();
+        ScreenNetworkingImpl.setTransport(transport);
+        return transport;
+    }
+
+    /**
+     * Restores the default screen message transport.
+     */
+    public static void uninstall() {
+        ScreenNetworkingImpl.setTransport(null);
+    }
+
+    /**
+     * Connects two GUI descriptions.
+     *
+     * @param server the description acting as the server
+     * @param client the description acting as the client
+     */
+    public void connect(SyncedGuiDescription server, SyncedGuiDescription client) {
+        Objects.requireNonNull(server, "server");
+        Objects.requireNonNull(client, "client");
+        peers.put(server, client);
+        peers.put(client, server);
+        sides.put(server, NetworkSide.SERVER);
+        sides.put(client, NetworkSide.CLIENT);
+    }
+
+    /**
+     * Disconnects a GUI description from its peer.
+     *
+     * @param description the description
+     */
+    public void disconnect(SyncedGuiDescription description) {
+        SyncedGuiDescription peer = peers.remove(description);
+        sides.remove(description);
+        if (peer != null) {
+            peers.remove(peer);
+            sides.remove(peer);
+        }
+    }
+
+    @Override
+    public void send(SyncedGuiDescription description, NetworkSide side, byte[] frame) {
+        SyncedGuiDescription peer = peers.get(description);
+        if (peer == null)
+            throw new IllegalStateException(description + " is not connected");
+
+        sentFrames++;
+        sentBytes += frame.length;
+        ScreenNetworkingImpl.receiveFrame(peer, sides.get(peer), frame);
+    }
+
+    @Override
+    public NetworkSide getSide(SyncedGuiDescription description) {
+        NetworkSide side = sides.get(description);
+        return side != null ? side : description.getNetworkSide();
+    }
+
+    /**
+     * {@return the number of frames sent through this transport}
+     */
+    public long getSentFrames() {
+        return sentFrames;
+    }
+
+    /**
+     * {@return the number of bytes sent through this transport}
+     */
+    public long getSentBytes() {
+        return sentBytes;
+    }
+}
@@ -0,0 +1,114 @@
+package dev.tr7zw.trender.gui.networking;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import net.minecraft.network.FriendlyByteBuf;
+//#if MC >= 12005
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+//#endif
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * A codec that writes screen message data directly to a byte buffer.
+ *
+ * <p>
+ * Unlike the {@link com.mojang.serialization.Encoder Encoder}/{@link
+ * com.mojang.serialization.Decoder Decoder} based methods of
+ * {@link ScreenNetworking}, messages sent with a message codec don't go through
+ * an intermediate NBT tree. This is the preferred way to send small, frequent
+ * messages such as slider values and button presses.
+ *
+ * <p>
+ * On versions with registry-aware buffers, the buffers passed to message codecs
+ * are {@code RegistryFriendlyByteBuf}s, so registry-dependent
+ * {@code StreamCodec}s can be adapted with {@link #of(StreamCodec)}.
+ *
+ * @param <D> the message data type
+ */
+public interface MessageCodec<D> {
+    /** A codec for messages without data, such as button presses. */
+    MessageCodec<Void> EMPTY = of((buf, data) -> {
+    }, buf -> null);
+    /** A codec for variable-length ints. */
+    MessageCodec<Integer> VAR_INT = of(FriendlyByteBuf::writeVarInt, FriendlyByteBuf::readVarInt);
+    /** A codec for variable-length longs. */
+    MessageCodec<Long> VAR_LONG = of(FriendlyByteBuf::writeVarLong, FriendlyByteBuf::readVarLong);
+    /** A codec for booleans. */
+    MessageCodec<Boolean> BOOLEAN = of(FriendlyByteBuf::writeBoolean, FriendlyByteBuf::readBoolean);
+    /** A codec for floats. */
+    MessageCodec<Float> FLOAT = of(FriendlyByteBuf::writeFloat, FriendlyByteBuf::readFloat);
+    /** A codec for doubles. */
+    MessageCodec<Double> DOUBLE = of(FriendlyByteBuf::writeDouble, FriendlyByteBuf::readDouble);
+    /** A codec for UTF-8 strings. */
+    MessageCodec<String> STRING = of(FriendlyByteBuf::writeUtf, buf -> buf.readUtf());
+    /** A codec for resource locations. */
+    MessageCodec<ResourceLocation> RESOURCE_LOCATION = of(FriendlyByteBuf::writeResourceLocation,
+            FriendlyByteBuf::readResourceLocation);
+
+    /**
+     * Writes message data to a buffer.
+     *
+     * @param buf  the buffer
+     * @param data the message data
+     */
+    void encode(FriendlyByteBuf buf, D data);
+
+    /**
+     * Reads message data from a buffer.
+     *
+     * @param buf the buffer
+     * @return the message data
+     */
+    D decode(FriendlyByteBuf buf);
+
+    /**
+     * Creates a message codec from an encoding and a decoding function.
+     *
+     * @param encoder the encoding function
+     * @param decoder the decoding function
+     * @param <D>     the message data type
+     * @return the created codec
+     */
+    static <D> MessageCodec<D> of(BiConsumer<FriendlyByteBuf, D> encoder, Function<FriendlyByteBuf, D> decoder) {
+        Objects.requireNonNull(encoder, "encoder");
+        Objects.requireNonNull(decoder, "decoder");
+        return new MessageCodec<>() {
+            @Override
+            public void encode(FriendlyByteBuf buf, D data) {
+                encoder.accept(buf, data);
+            }
+
+            @Override
+            public D decode(FriendlyByteBuf buf) {
+                return decoder.apply(buf);
+            }
+        };
+    }
+
+    //#if MC >= 12005
+    /**
+     * Adapts a stream codec into a message codec.
+     *
+     * @param codec the stream codec
+     * @param <D>   the message data type
+     * @return the adapted codec
+     */
+    static <D> MessageCodec<D> of(StreamCodec<? super RegistryFriendlyByteBuf, D> codec) {
+        Objects.requireNonNull(codec, "codec");
+        return new MessageCodec<>() {
+            @Override
+            public void encode(FriendlyByteBuf buf, D data) {
+                codec.encode((RegistryFriendlyByteBuf) buf, data);
+            }
+
+            @Override
+            public D decode(FriendlyByteBuf buf) {
+                return codec.decode((RegistryFriendlyByteBuf) buf);
+            }
+        };
+    }
+    //#endif
+}
@@ -0,0 +1,36 @@
+package dev.tr7zw.trender.gui.networking;
+
+import dev.tr7zw.trender.gui.SyncedGuiDescription;
+
+/**
+ * Carries encoded screen message frames to the other side of a connection.
+ *
+ * <p>
+ * The default transport sends frames as custom payload packets. The
+ * {@link LoopbackTransport} delivers them to a paired GUI description in the
+ * same process instead, which is useful for testing without a server.
+ *
+ * <p>
+ * The receiving side passes frames to
+ * {@link dev.tr7zw.trender.gui.impl.ScreenNetworkingImpl#receiveFrame}.
+ */
+public interface ScreenMessageTransport {
+    /**
+     * Sends a frame of screen messages.
+     *
+     * @param description the sending GUI description
+     * @param side        the side the frame is sent from
+     * @param frame       the encoded frame, which must not be modified
+     */
+    void send(SyncedGuiDescription description, NetworkSide side, byte[] frame);
+
+    /**
+     * Gets the network side a GUI description runs on, as seen by this transport.
+     *
+     * @param description the GUI description
+     * @return the network side
+     */
+    default NetworkSide getSide(SyncedGuiDescription description) {
+        return description.getNetworkSide();
+    }
+}
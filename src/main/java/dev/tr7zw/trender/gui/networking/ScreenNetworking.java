@@ -4,6 +4,7 @@ import com.mojang.serialization.Decoder;
 import com.mojang.serialization.Encoder;
 
 import dev.tr7zw.trender.gui.SyncedGuiDescription;
+import dev.tr7zw.trender.gui.impl.ScreenNetworkingImpl;
 import net.minecraft.resources.ResourceLocation;
 
 /**
@@ -23,6 +24,12 @@ import net.minecraft.resources.ResourceLocation;
  * {@code ScreenNetworking} for the sending side. The message ID and codec
  * should match up with a receiver registered on the <i>opposite</i> side.
  *
+ * <p>
+ * Small, frequent messages should use a {@link MessageCodec}, which writes the
+ * data directly to the packet instead of going through NBT. Messages are sent
+ * with a {@link ScreenMessageTransport}; the {@link LoopbackTransport} connects
+ * two GUI descriptions in the same process.
+ *
  * <h2>Example</h2>
  * {@snippet :
  * private static final Identifier MESSAGE_ID = new Identifier("my_mod", "some_message");
@@ -55,8 +62,7 @@ public interface ScreenNetworking {
      * @throws NullPointerException if either parameter is null
      */
     static ScreenNetworking of(SyncedGuiDescription description, NetworkSide networkSide) {
-        return null;
-        //        return ScreenNetworkingImpl.of(description, networkSide);
+        return ScreenNetworkingImpl.of(description, networkSide);
     }
 
     /**
@@ -76,7 +82,22 @@ public interface ScreenNetworking {
     <D> void receive(ResourceLocation message, Decoder<D> decoder, MessageReceiver<D> receiver);
 
     /**
-     * Sends a screen message to the other side of the connection.
+     * Registers a message receiver for a message that is encoded directly to
+     * bytes.
+     *
+     * @param message  the screen message ID
+     * @param codec    the message codec
+     * @param receiver the message receiver
+     * @param <D>      the message data type
+     * @throws IllegalStateException if the message has already been registered
+     * @throws NullPointerException  if any parameter is null
+     * @see MessageCodec
+     */
+    <D> void receive(ResourceLocation message, MessageCodec<D> codec, MessageReceiver<D> receiver);
+
+    /**
+     * Sends a screen message to the other side of the connection. Messages are
+     * queued and sent together at the end of the tick.
      *
      * <p>
      * The encoder can depend on registry data and
@@ -89,6 +110,50 @@ public interface ScreenNetworking {
      */
     <D> void send(ResourceLocation message, Encoder<D> encoder, D data);
 
+    /**
+     * Sends a screen message that is encoded directly to bytes to the other side
+     * of the connection.
+     *
+     * @param message the screen message ID
+     * @param codec   the message codec
+     * @param data    the message data
+     * @throws NullPointerException if the message ID or the codec is null
+     * @see MessageCodec
+     */
+    <D> void send(ResourceLocation message, MessageCodec<D> codec, D data);
+
+    /**
+     * Marks a message as coalescible. Sent messages are queued until the end of
+     * the tick; for coalescible messages, only the latest queued value is sent.
+     * This is useful for messages that replace the previous state, such as the
+     * value of a slider that is being dragged.
+     *
+     * @param message the screen message ID
+     * @return this networking handler
+     * @throws NullPointerException if the message ID is null
+     */
+    ScreenNetworking markCoalescible(ResourceLocation message);
+
+    /**
+     * {@return the message counters of this networking handler}
+     */
+    Metrics getMetrics();
+
+    /**
+     * Counters of the messages sent by a networking handler.
+     *
+     * @param sentMessages      the number of messages sent to the other side
+     * @param coalescedMessages the number of messages replaced by a later value
+     *                          before being sent
+     * @param droppedMessages   the number of messages dropped because too many
+     *                          messages were pending
+     * @param sentFrames        the number of frames (packets) sent
+     * @param sentBytes         the total size of the sent frames
+     */
+    record Metrics(long sentMessages, long coalescedMessages, long droppedMessages, long sentFrames,
+            long sentBytes) {
+    }
+
     /**
      * A handler for received screen messages.
      *
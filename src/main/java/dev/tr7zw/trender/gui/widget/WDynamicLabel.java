@@ -2,11 +2,15 @@ package dev.tr7zw.trender.gui.widget;
 
 import java.util.function.Supplier;
 
+import org.jetbrains.annotations.Nullable;
+
+import dev.tr7zw.trender.gui.client.CottonHud;
 import dev.tr7zw.trender.gui.client.RenderContext;
 import dev.tr7zw.trender.gui.client.ScreenDrawing;
 import dev.tr7zw.trender.gui.impl.client.TextAlignment;
 import dev.tr7zw.trender.gui.impl.client.style.StyleConstants;
 import dev.tr7zw.trender.gui.widget.data.HorizontalAlignment;
+import dev.tr7zw.trender.gui.widget.data.ObservableView;
 import dev.tr7zw.trender.gui.widget.data.VerticalAlignment;
 
 /**
@@ -17,13 +21,22 @@ import dev.tr7zw.trender.gui.widget.data.VerticalAlignment;
  * <p>
  * Translating strings in dynamic labels should be done using
  * {@link net.minecraft.client.resources.language.I18n#get(String, Object...)}.
+ *
+ * <p>
+ * The supplier is queried every frame. If the text is derived from observable
+ * properties, passing a {@linkplain ObservableView#computed(Supplier) computed
+ * view} avoids rebuilding the string in frames where nothing changed. On the
+ * HUD, a {@linkplain CottonHud#setRefreshRate(WWidget, int) refresh rate} can
+ * be set instead, so the supplier is only queried at that rate.
  */
-public class WDynamicLabel extends WWidget {
+public class WDynamicLabel extends WWidget implements CottonHud.Refreshable {
     protected Supplier<String> text;
     protected HorizontalAlignment horizontalAlignment = HorizontalAlignment.LEFT;
     protected VerticalAlignment verticalAlignment = VerticalAlignment.TOP;
     protected int color;
     protected boolean drawShadows;
+    @Nullable
+    private String refreshedText = null;
 
     /**
      * Constructs a new dynamic label.
@@ -50,7 +63,7 @@ public class WDynamicLabel extends WWidget {
     public void paint(RenderContext context, int x, int y, int mouseX, int mouseY) {
         int yOffset = TextAlignment.getTextOffsetY(verticalAlignment, getHeight(), 1);
 
-        String tr = text.get();
+        String tr = refreshedText != null ? refreshedText : text.get();
 
         if (getDrawShadows()) {
             ScreenDrawing.drawStringWithShadow(context, tr, horizontalAlignment, x, y + yOffset, this.getWidth(),
@@ -60,6 +73,16 @@ public class WDynamicLabel extends WWidget {
         }
     }
 
+    @Override
+    public void refresh() {
+        refreshedText = text.get();
+    }
+
+    @Override
+    public void stopRefreshing() {
+        refreshedText = null;
+    }
+
     @Override
     public boolean canResize() {
         return true;
@@ -101,6 +124,7 @@ public class WDynamicLabel extends WWidget {
      */
     public WDynamicLabel setText(Supplier<String> text) {
         this.text = text;
+        this.refreshedText = null;
         return this;
     }
 
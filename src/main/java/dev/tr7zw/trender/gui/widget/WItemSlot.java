@@ -6,6 +6,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -13,6 +14,7 @@ import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.UnmodifiableView;
 
 import dev.tr7zw.trender.gui.GuiDescription;
+import dev.tr7zw.trender.gui.SyncedGuiDescription;
 import dev.tr7zw.trender.gui.ValidatedSlot;
 import dev.tr7zw.trender.gui.client.BackgroundPainter;
 import dev.tr7zw.trender.gui.client.RenderContext;
@@ -78,6 +80,12 @@ import net.minecraft.world.item.ItemStack;
  * });
  * }
  * </pre>
+ *
+ * <p>
+ * In a {@link dev.tr7zw.trender.gui.SyncedGuiDescription SyncedGuiDescription},
+ * changes are collected during a tick and reported once per changed slot at
+ * the end of it. This includes direct changes to the inventory that bypass the
+ * slot, such as hoppers.
  */
 public class WItemSlot extends WWidget {
     /**
@@ -106,6 +114,9 @@ public class WItemSlot extends WWidget {
     private int hoveredSlot = -1;
     private Predicate<ItemStack> inputFilter = ValidatedSlot.DEFAULT_ITEM_FILTER;
     private Predicate<ItemStack> outputFilter = ValidatedSlot.DEFAULT_ITEM_FILTER;
+    @Nullable
+    private IntPredicate displayFilter = null;
+    private boolean peersShown = true;
     private final Set<ChangeListener> listeners = new HashSet<>();
     private final FocusModel<Integer> focusModel = new FocusModel<>() {
         @Override
@@ -414,6 +425,17 @@ public class WItemSlot extends WWidget {
     @Override
     public void validate(GuiDescription host) {
         super.validate(host);
+        if (keepPeers(host)) {
+            int index = 0;
+            for (int y = 0; y < slotsHigh; y++) {
+                for (int x = 0; x < slotsWide; x++) {
+                    peers.get(index++).setPosition(this.getAbsoluteX() + (x * 18) + 1,
+                            this.getAbsoluteY() + (y * 18) + 1);
+                }
+            }
+            return;
+        }
+
         peers.clear();
         int index = startIndex;
 
@@ -426,6 +448,7 @@ public class WItemSlot extends WWidget {
                 slot.setTakingAllowed(takingAllowed);
                 slot.setInputFilter(inputFilter);
                 slot.setOutputFilter(outputFilter);
+                updateVisibility(slot);
                 for (ChangeListener listener : listeners) {
                     slot.addChangeListener(this, listener);
                 }
@@ -436,14 +459,51 @@ public class WItemSlot extends WWidget {
         }
     }
 
+    private boolean keepPeers(GuiDescription host) {
+        if (peers.size() != slotsWide * slotsHigh)
+            return false;
+
+        for (int i = 0; i < peers.size(); i++) {
+            ValidatedSlot peer = peers.get(i);
+            if (peer.container != inventory || peer.getInventoryIndex() != startIndex + i)
+                return false;
+        }
+
+        // Every peer has to be asked so the host can tell whether all of them were kept
+        boolean kept = true;
+        for (ValidatedSlot peer : peers) {
+            kept &= host.keepSlotPeer(peer);
+        }
+        return kept;
+    }
+
+    /**
+     * Binds the existing slot peers to the inventory slots starting at a new
+     * index, without creating new peers. Used by scrollable slot windows.
+     *
+     * @param startIndex the new starting index in the inventory
+     */
+    protected void rebindPeers(int startIndex) {
+        this.startIndex = startIndex;
+        for (int i = 0; i < peers.size(); i++) {
+            peers.get(i).setInventoryIndex(startIndex + i);
+        }
+        refreshDisplayFilter();
+    }
+
     @Override
     public InputResult onKeyPressed(int ch, int key, int modifiers) {
         if (isActivationKey(ch) && host instanceof AbstractContainerMenu handler && focusedSlot >= 0) {
             Minecraft client = Minecraft.getInstance();
 
             ValidatedSlot peer = peers.get(focusedSlot);
-            client.gameMode.handleInventoryMouseClick(handler.containerId, peer.index, 0, ClickType.PICKUP,
-                    client.player);
+            Runnable click = () -> client.gameMode.handleInventoryMouseClick(handler.containerId, peer.index, 0,
+                    ClickType.PICKUP, client.player);
+            if (handler instanceof SyncedGuiDescription description) {
+                description.getSlotPrediction().predict(click);
+            } else {
+                click.run();
+            }
             return InputResult.PROCESSED;
         }
 
@@ -557,6 +617,50 @@ public class WItemSlot extends WWidget {
         return this;
     }
 
+    /**
+     * Gets the display filter of this slot widget.
+     *
+     * @return the display filter, or null if all slots are shown
+     */
+    @Nullable
+    public IntPredicate getDisplayFilter() {
+        return displayFilter;
+    }
+
+    /**
+     * Sets the display filter of this slot widget. The filter tests the inventory
+     * indices of the slots; slots that don't match are hidden, so their items
+     * aren't drawn and they can't be clicked. The slot background is still
+     * painted.
+     *
+     * <p>
+     * This is a purely visual filter that's usually set on the client, for
+     * example from an {@link dev.tr7zw.trender.gui.ItemSearchIndex
+     * ItemSearchIndex}.
+     *
+     * @param displayFilter the display filter, or null to show all slots
+     * @return this item slot
+     */
+    public WItemSlot setDisplayFilter(@Nullable IntPredicate displayFilter) {
+        this.displayFilter = displayFilter;
+        refreshDisplayFilter();
+        return this;
+    }
+
+    /**
+     * Applies the {@linkplain #setDisplayFilter display filter} again, for example
+     * after the results of the filter have changed.
+     */
+    public void refreshDisplayFilter() {
+        for (ValidatedSlot peer : peers) {
+            updateVisibility(peer);
+        }
+    }
+
+    private void updateVisibility(ValidatedSlot peer) {
+        peer.setVisible(peersShown && (displayFilter == null || displayFilter.test(peer.getInventoryIndex())));
+    }
+
     @Override
     public void paint(RenderContext context, int x, int y, int mouseX, int mouseY) {
         if (backgroundPainter != null) {
@@ -598,9 +702,8 @@ public class WItemSlot extends WWidget {
 
     @Override
     public void onShown() {
-        for (ValidatedSlot peer : peers) {
-            peer.setVisible(true);
-        }
+        peersShown = true;
+        refreshDisplayFilter();
     }
 
     @Override
@@ -615,9 +718,8 @@ public class WItemSlot extends WWidget {
     public void onHidden() {
         super.onHidden();
 
-        for (ValidatedSlot peer : peers) {
-            peer.setVisible(false);
-        }
+        peersShown = false;
+        refreshDisplayFilter();
     }
 
     @Override
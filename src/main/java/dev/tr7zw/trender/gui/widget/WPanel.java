@@ -9,6 +9,10 @@ import java.util.stream.Stream;
 import dev.tr7zw.trender.gui.GuiDescription;
 import dev.tr7zw.trender.gui.client.BackgroundPainter;
 import dev.tr7zw.trender.gui.client.RenderContext;
+import dev.tr7zw.trender.gui.impl.client.RenderDiagnostics;
+import dev.tr7zw.trender.gui.impl.client.WidgetProfiler;
+import dev.tr7zw.trender.gui.impl.jfr.GuiEvents;
+import dev.tr7zw.trender.gui.impl.jfr.ValidateEvent;
 import dev.tr7zw.trender.gui.widget.data.Insets;
 
 /**
@@ -125,11 +129,30 @@ public abstract class WPanel extends WWidget {
      */
     @Override
     public void validate(GuiDescription c) {
+        // Only the root panel reports its validation, which includes the whole tree
+        ValidateEvent event = getParent() == null ? new ValidateEvent() : null;
+        if (event != null)
+            event.begin();
+
         super.validate(c);
-        layout();
+        int token = WidgetProfiler.begin(this, WidgetProfiler.Phase.LAYOUT);
+        try {
+            layout();
+        } finally {
+            WidgetProfiler.end(token);
+        }
         for (WWidget child : children) {
             child.validate(c);
         }
+
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.rootClass = getClass().getName();
+                event.subtreeSize = GuiEvents.countWidgets(this);
+                event.commit();
+            }
+        }
     }
 
     @Override
@@ -146,7 +169,15 @@ public abstract class WPanel extends WWidget {
             backgroundPainter.paintBackground(context, x, y, this);
 
         for (WWidget child : children) {
-            child.paint(context, x + child.getX(), y + child.getY(), mouseX - child.getX(), mouseY - child.getY());
+            int token = WidgetProfiler.begin(child, WidgetProfiler.Phase.PAINT);
+            WWidget previous = RenderDiagnostics.enterWidget(child);
+            try {
+                child.paint(context, x + child.getX(), y + child.getY(), mouseX - child.getX(),
+                        mouseY - child.getY());
+            } finally {
+                RenderDiagnostics.exitWidget(previous);
+                WidgetProfiler.end(token);
+            }
         }
     }
 
@@ -156,8 +187,14 @@ public abstract class WPanel extends WWidget {
 
     @Override
     public void tick() {
-        for (WWidget child : children)
-            child.tick();
+        for (WWidget child : children) {
+            int token = WidgetProfiler.begin(child, WidgetProfiler.Phase.TICK);
+            try {
+                child.tick();
+            } finally {
+                WidgetProfiler.end(token);
+            }
+        }
     }
 
     @Override
@@ -0,0 +1,537 @@
+package dev.tr7zw.trender.gui.widget;
+
+import org.jetbrains.annotations.Nullable;
+
+import org.lwjgl.glfw.GLFW;
+
+import dev.tr7zw.trender.gui.client.RenderContext;
+import dev.tr7zw.trender.gui.client.ScreenDrawing;
+import dev.tr7zw.trender.gui.client.Scissors;
+import dev.tr7zw.trender.gui.impl.client.NarrationMessages;
+import dev.tr7zw.trender.gui.widget.data.InputResult;
+import dev.tr7zw.trender.gui.widget.data.TextBuffer;
+import dev.tr7zw.transition.mc.ComponentProvider;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.Font;
+//#if MC >= 11800
+import net.minecraft.client.gui.narration.NarratedElementType;
+import net.minecraft.client.gui.narration.NarrationElementOutput;
+//#endif
+import net.minecraft.client.gui.screens.Screen;
+import net.minecraft.network.chat.Component;
+import net.minecraft.util.Mth;
+
+/**
+ * A multi-line text editor.
+ *
+ * <p>
+ * The text is stored in a {@link TextBuffer}, so edits don't copy the whole
+ * text and caret positions are found from cached advances. Only the visible
+ * lines, and only their visible characters, are drawn. Lines aren't wrapped;
+ * the text area scrolls horizontally to keep the caret visible.
+ */
+public class WTextArea extends WWidget {
+    public static final int TEXT_PADDING = 4;
+
+    private static final int BACKGROUND_COLOR = 0xFF000000;
+    private static final int BORDER_COLOR_SELECTED = 0xFFFFFFA0;
+    private static final int BORDER_COLOR_UNSELECTED = 0xFFA0A0A0;
+    private static final int CURSOR_COLOR = 0xFFD0D0D0;
+    private static final int SCROLL_LINES = 3;
+
+    private final TextBuffer buffer = new TextBuffer(c -> getTextRenderer().width(String.valueOf((char) c)));
+
+    @Nullable
+    private Font textRenderer;
+
+    private int maxLength = Integer.MAX_VALUE;
+    private boolean editable = true;
+    private int tickCount = 0;
+
+    private int disabledColor = 0xFF707070;
+    private int enabledColor = 0xFFE0E0E0;
+    private int suggestionColor = 0xFF808080;
+
+    @Nullable
+    private Component suggestion = null;
+
+    // The first visible line and the horizontal scroll in pixels
+    private int scrollLine = 0;
+    private int scrollX = 0;
+
+    private int cursor = 0;
+    /**
+     * The anchor point of the selection, or -1 if there's no selection. See
+     * {@link WTextField} for how the anchor moves.
+     */
+    private int select = -1;
+    /** The X position kept when moving the caret up and down, or -1. */
+    private int preferredX = -1;
+
+    @Nullable
+    private Runnable onChanged;
+
+    public WTextArea() {
+    }
+
+    public WTextArea(Component suggestion) {
+        this.suggestion = suggestion;
+    }
+
+    /**
+     * Sets the text of this text area. If the text is more than the
+     * {@linkplain #getMaxLength() max length}, it'll be shortened to the max
+     * length.
+     *
+     * @param text the new text
+     */
+    public void setText(String text) {
+        buffer.setText(normalize(text.length() > maxLength ? text.substring(0, maxLength) : text));
+        select = -1;
+        cursor = Mth.clamp(cursor, 0, buffer.length());
+        changed();
+    }
+
+    /**
+     * {@return the text in this text area}
+     */
+    public String getText() {
+        return buffer.toString();
+    }
+
+    /**
+     * {@return the text model of this text area} It must not be modified
+     * directly.
+     */
+    public TextBuffer getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public boolean canResize() {
+        return true;
+    }
+
+    @Override
+    public boolean canFocus() {
+        return true;
+    }
+
+    @Override
+    public void tick() {
+        super.tick();
+        this.tickCount++;
+    }
+
+    public int getCursor() {
+        return cursor;
+    }
+
+    public void setCursorPos(int location) {
+        cursor = Mth.clamp(location, 0, buffer.length());
+        preferredX = -1;
+        scrollCursorIntoView();
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public WTextArea setMaxLength(int max) {
+        this.maxLength = max;
+        if (buffer.length() > max)
+            setText(buffer.subSequence(0, max));
+        return this;
+    }
+
+    public boolean isEditable() {
+        return editable;
+    }
+
+    public WTextArea setEditable(boolean editable) {
+        this.editable = editable;
+        return this;
+    }
+
+    /**
+     * Sets the listener that is called after the text changed. The listener
+     * isn't passed the text, so reading it with {@link #getText()} is only paid
+     * for when needed.
+     *
+     * @param listener the listener, or null
+     * @return this text area
+     */
+    public WTextArea setChangedListener(@Nullable Runnable listener) {
+        this.onChanged = listener;
+        return this;
+    }
+
+    public WTextArea setEnabledColor(int col) {
+        this.enabledColor = col;
+        return this;
+    }
+
+    public WTextArea setSuggestionColor(int suggestionColor) {
+        this.suggestionColor = suggestionColor;
+        return this;
+    }
+
+    public WTextArea setDisabledColor(int col) {
+        this.disabledColor = col;
+        return this;
+    }
+
+    @Nullable
+    public Component getSuggestion() {
+        return suggestion;
+    }
+
+    public WTextArea setSuggestion(@Nullable Component suggestion) {
+        this.suggestion = suggestion;
+        return this;
+    }
+
+    @Nullable
+    public String getSelection() {
+        if (select < 0 || select == cursor)
+            return null;
+        return buffer.subSequence(Math.min(select, cursor), Math.max(select, cursor));
+    }
+
+    private Font getTextRenderer() {
+        return textRenderer != null ? textRenderer : (textRenderer = Minecraft.getInstance().font);
+    }
+
+    private int getLineHeight() {
+        return getTextRenderer().lineHeight;
+    }
+
+    private int getVisibleLines() {
+        return Math.max(1, (getHeight() - TEXT_PADDING * 2) / getLineHeight());
+    }
+
+    private int getInnerWidth() {
+        return Math.max(1, getWidth() - TEXT_PADDING * 2);
+    }
+
+    public void scrollCursorIntoView() {
+        int line = buffer.getLineOf(cursor);
+        int visibleLines = getVisibleLines();
+        if (line < scrollLine) {
+            scrollLine = line;
+        } else if (line >= scrollLine + visibleLines) {
+            scrollLine = line - visibleLines + 1;
+        }
+
+        int caretX = buffer.getAdvance(line, cursor - buffer.getLineStart(line));
+        int innerWidth = getInnerWidth();
+        if (caretX < scrollX) {
+            scrollX = caretX;
+        } else if (caretX >= scrollX + innerWidth) {
+            scrollX = caretX - innerWidth + 1;
+        }
+        checkScroll();
+    }
+
+    private void checkScroll() {
+        scrollLine = Mth.clamp(scrollLine, 0, Math.max(0, buffer.getLineCount() - getVisibleLines()));
+        scrollX = Math.max(0, scrollX);
+    }
+
+    protected void renderBox(RenderContext context, int x, int y) {
+        int borderColor = this.isFocused() ? BORDER_COLOR_SELECTED : BORDER_COLOR_UNSELECTED;
+        ScreenDrawing.coloredRect(context, x - 1, y - 1, getWidth() + 2, getHeight() + 2, borderColor);
+        ScreenDrawing.coloredRect(context, x, y, getWidth(), getHeight(), BACKGROUND_COLOR);
+    }
+
+    protected void renderLine(RenderContext context, int x, int y, int line) {
+        // Only the characters between the left and right edge are drawn
+        int innerWidth = getInnerWidth();
+        int lineStart = buffer.getLineStart(line);
+        int length = buffer.getLineEnd(line) - lineStart;
+        int first = Math.max(0, buffer.getColumnAt(line, scrollX) - 1);
+        int last = Math.min(length, buffer.getColumnAt(line, scrollX + innerWidth) + 1);
+        if (first >= last)
+            return;
+
+        String visibleText = buffer.subSequence(lineStart + first, lineStart + last);
+        int textColor = this.editable ? this.enabledColor : this.disabledColor;
+        context.drawString(getTextRenderer(), visibleText, x + buffer.getAdvance(line, first) - scrollX, y, textColor,
+                true);
+    }
+
+    protected void renderSelection(RenderContext context, int x, int y, int line) {
+        if (select == -1 || select == cursor)
+            return;
+
+        int lineStart = buffer.getLineStart(line);
+        int lineEnd = buffer.getLineEnd(line);
+        int left = Math.max(Math.min(cursor, select), lineStart);
+        int right = Math.min(Math.max(cursor, select), lineEnd);
+        boolean separatorSelected = Math.max(cursor, select) > lineEnd && line + 1 < buffer.getLineCount();
+        if (left > right || (left == right && !separatorSelected))
+            return;
+
+        int leftX = buffer.getAdvance(line, left - lineStart) - scrollX;
+        int rightX = buffer.getAdvance(line, right - lineStart) - scrollX;
+        if (separatorSelected)
+            rightX += getTextRenderer().width(" ");
+        context.invertedRect(x + leftX, y, rightX - leftX, getLineHeight());
+    }
+
+    protected void renderCursor(RenderContext context, int x, int y) {
+        if (this.tickCount / 6 % 2 == 0)
+            return;
+
+        int line = buffer.getLineOf(cursor);
+        if (line < scrollLine || line >= scrollLine + getVisibleLines())
+            return;
+        int caretX = buffer.getAdvance(line, cursor - buffer.getLineStart(line)) - scrollX;
+        ScreenDrawing.coloredRect(context, x + caretX, y + (line - scrollLine) * getLineHeight() - 1, 1,
+                getLineHeight() + 1, CURSOR_COLOR);
+    }
+
+    protected void renderSuggestion(RenderContext context, int x, int y) {
+        if (this.suggestion == null)
+            return;
+        context.drawString(getTextRenderer(), suggestion, x, y, this.suggestionColor, true);
+    }
+
+    @Override
+    public void paint(RenderContext context, int x, int y, int mouseX, int mouseY) {
+        checkScroll();
+        renderBox(context, x, y);
+
+        int textX = x + TEXT_PADDING;
+        int textY = y + TEXT_PADDING;
+        if (buffer.length() == 0 && !this.isFocused())
+            renderSuggestion(context, textX, textY);
+
+        Scissors.push(context, textX, textY, getInnerWidth(), getHeight() - TEXT_PADDING * 2);
+        int lastLine = Math.min(buffer.getLineCount(), scrollLine + getVisibleLines());
+        for (int line = scrollLine; line < lastLine; line++) {
+            int lineY = textY + (line - scrollLine) * getLineHeight();
+            renderLine(context, textX, lineY, line);
+            renderSelection(context, textX, lineY, line);
+        }
+        if (this.isFocused())
+            renderCursor(context, textX, textY);
+        Scissors.pop();
+    }
+
+    private int getCaretPosition(int x, int y) {
+        int line = Mth.clamp(scrollLine + Math.floorDiv(y - TEXT_PADDING, getLineHeight()), 0,
+                buffer.getLineCount() - 1);
+        return buffer.getLineStart(line) + buffer.getColumnAt(line, x - TEXT_PADDING + scrollX);
+    }
+
+    @Override
+    public InputResult onMouseDown(int x, int y, int button) {
+        requestFocus();
+        cursor = getCaretPosition(x, y);
+        select = -1;
+        preferredX = -1;
+        scrollCursorIntoView();
+        return InputResult.PROCESSED;
+    }
+
+    @Override
+    public InputResult onMouseDrag(int x, int y, int button, double deltaX, double deltaY) {
+        if (!isFocused())
+            return InputResult.IGNORED;
+        if (select == -1)
+            select = cursor;
+        cursor = getCaretPosition(x, y);
+        scrollCursorIntoView();
+        return InputResult.PROCESSED;
+    }
+
+    @Override
+    public InputResult onClick(int x, int y, int button) {
+        requestFocus();
+        return InputResult.PROCESSED;
+    }
+
+    @Override
+    public InputResult onMouseScroll(int x, int y, double horizontalAmount, double verticalAmount) {
+        scrollLine -= (int) Math.signum(verticalAmount) * SCROLL_LINES;
+        scrollX -= (int) Math.signum(horizontalAmount) * getInnerWidth() / 4;
+        checkScroll();
+        return InputResult.PROCESSED;
+    }
+
+    @Override
+    public InputResult onCharTyped(char ch) {
+        if (!isEditable())
+            return InputResult.IGNORED;
+        insertText(String.valueOf(ch));
+        return InputResult.PROCESSED;
+    }
+
+    private static String normalize(String text) {
+        return text.indexOf('\r') < 0 ? text : text.replace("\r\n", "\n").replace('\r', '\n');
+    }
+
+    private void insertText(String toInsert) {
+        toInsert = normalize(toInsert);
+        int left = cursor;
+        int right = cursor;
+        if (select != -1 && select != cursor) {
+            left = Math.min(cursor, select);
+            right = Math.max(cursor, select);
+        }
+        if ((long) buffer.length() - (right - left) + toInsert.length() > maxLength)
+            return;
+
+        buffer.delete(left, right);
+        buffer.insert(left, toInsert);
+        select = -1;
+        cursor = left + toInsert.length();
+        preferredX = -1;
+        changed();
+        scrollCursorIntoView();
+    }
+
+    private void deleteSelection() {
+        int left = Math.min(cursor, select);
+        int right = Math.max(cursor, select);
+        select = -1;
+        cursor = left;
+        preferredX = -1;
+        if (left != right) {
+            buffer.delete(left, right);
+            changed();
+        }
+        scrollCursorIntoView();
+    }
+
+    private void changed() {
+        if (onChanged != null)
+            onChanged.run();
+    }
+
+    private void delete(int modifiers, boolean backwards) {
+        if (select == -1 || select == cursor) {
+            select = skipCharacters((GLFW.GLFW_MOD_CONTROL & modifiers) != 0, backwards ? -1 : 1);
+        }
+        deleteSelection();
+    }
+
+    private int skipCharacters(boolean skipMany, int direction) {
+        int position = cursor;
+        while (true) {
+            position += direction;
+            if (position < 0)
+                return 0;
+            if (position > buffer.length())
+                return buffer.length();
+            if (!skipMany)
+                return position;
+            if (position < buffer.length() && Character.isWhitespace(buffer.charAt(position)))
+                return position;
+        }
+    }
+
+    private void moveCursor(int position, int modifiers) {
+        if ((GLFW.GLFW_MOD_SHIFT & modifiers) != 0) {
+            if (select == -1 || select == cursor)
+                select = cursor;
+        } else {
+            select = -1;
+        }
+        cursor = Mth.clamp(position, 0, buffer.length());
+    }
+
+    private void moveVertically(int lines, int modifiers) {
+        int line = buffer.getLineOf(cursor);
+        if (preferredX < 0)
+            preferredX = buffer.getAdvance(line, cursor - buffer.getLineStart(line));
+        int target = Mth.clamp(line + lines, 0, buffer.getLineCount() - 1);
+        int x = preferredX;
+        moveCursor(buffer.getLineStart(target) + buffer.getColumnAt(target, x), modifiers);
+        preferredX = x;
+    }
+
+    public void onDirectionalKey(int direction, int modifiers) {
+        preferredX = -1;
+        if ((GLFW.GLFW_MOD_SHIFT & modifiers) == 0 && select != -1 && select != cursor) {
+            cursor = direction < 0 ? Math.min(cursor, select) : Math.max(cursor, select);
+            select = -1;
+        } else {
+            moveCursor(skipCharacters((GLFW.GLFW_MOD_CONTROL & modifiers) != 0, direction), modifiers);
+        }
+    }
+
+    @Override
+    public InputResult onKeyPressed(int ch, int key, int modifiers) {
+        if (Screen.isCopy(ch)) {
+            copySelection();
+            return InputResult.PROCESSED;
+        } else if (Screen.isSelectAll(ch)) {
+            select = 0;
+            cursor = buffer.length();
+            return InputResult.PROCESSED;
+        }
+
+        if (!isEditable())
+            return InputResult.IGNORED;
+
+        if (Screen.isPaste(ch)) {
+            insertText(Minecraft.getInstance().keyboardHandler.getClipboard());
+            return InputResult.PROCESSED;
+        } else if (Screen.isCut(ch)) {
+            copySelection();
+            if (select != -1 && select != cursor)
+                deleteSelection();
+            return InputResult.PROCESSED;
+        }
+
+        boolean control = (GLFW.GLFW_MOD_CONTROL & modifiers) != 0;
+        switch (ch) {
+        case GLFW.GLFW_KEY_ENTER, GLFW.GLFW_KEY_KP_ENTER -> insertText("\n");
+        case GLFW.GLFW_KEY_DELETE -> delete(modifiers, false);
+        case GLFW.GLFW_KEY_BACKSPACE -> delete(modifiers, true);
+        case GLFW.GLFW_KEY_LEFT -> onDirectionalKey(-1, modifiers);
+        case GLFW.GLFW_KEY_RIGHT -> onDirectionalKey(1, modifiers);
+        case GLFW.GLFW_KEY_UP -> moveVertically(-1, modifiers);
+        case GLFW.GLFW_KEY_DOWN -> moveVertically(1, modifiers);
+        case GLFW.GLFW_KEY_PAGE_UP -> moveVertically(-getVisibleLines(), modifiers);
+        case GLFW.GLFW_KEY_PAGE_DOWN -> moveVertically(getVisibleLines(), modifiers);
+        case GLFW.GLFW_KEY_HOME -> {
+            preferredX = -1;
+            moveCursor(control ? 0 : buffer.getLineStart(buffer.getLineOf(cursor)), modifiers);
+        }
+        case GLFW.GLFW_KEY_END -> {
+            preferredX = -1;
+            moveCursor(control ? buffer.length() : buffer.getLineEnd(buffer.getLineOf(cursor)), modifiers);
+        }
+        default -> {
+            return InputResult.IGNORED;
+        }
+        }
+        scrollCursorIntoView();
+
+        return InputResult.PROCESSED;
+    }
+
+    private void copySelection() {
+        String selection = getSelection();
+        if (selection != null) {
+            Minecraft.getInstance().keyboardHandler.setClipboard(selection);
+        }
+    }
+
+    //#if MC >= 11800
+    @Override
+    public void addNarrations(NarrationElementOutput builder) {
+        // Only the current line is narrated, long texts would be unusable
+        builder.add(NarratedElementType.TITLE, ComponentProvider.translatable(NarrationMessages.TEXT_FIELD_TITLE_KEY,
+                buffer.getLine(buffer.getLineOf(cursor))));
+
+        if (suggestion != null) {
+            builder.add(NarratedElementType.HINT,
+                    ComponentProvider.translatable(NarrationMessages.TEXT_FIELD_SUGGESTION_KEY, suggestion));
+        }
+    }
+    //#endif
+}
@@ -0,0 +1,183 @@
+package dev.tr7zw.trender.gui.widget;
+
+import org.jetbrains.annotations.Nullable;
+
+import dev.tr7zw.trender.gui.GuiDescription;
+import dev.tr7zw.trender.gui.SlotScrollSync;
+import dev.tr7zw.trender.gui.SyncedGuiDescription;
+import dev.tr7zw.trender.gui.client.RenderContext;
+import dev.tr7zw.trender.gui.widget.data.Axis;
+import dev.tr7zw.trender.gui.widget.data.InputResult;
+import net.minecraft.world.Container;
+
+/**
+ * A scrollable grid of item slots for large inventories.
+ *
+ * <p>
+ * Unlike a {@link WItemSlot} covering the whole inventory, this widget only has
+ * slot peers for the visible rows. When the grid is scrolled, the same peers
+ * are bound to other slots of the inventory, so an inventory with thousands of
+ * slots doesn't need thousands of peers.
+ *
+ * <p>
+ * In a {@link SyncedGuiDescription}, the scroll offset is synced between the
+ * client and the server with a {@link SlotScrollSync}, so slot clicks and
+ * {@linkplain SyncedGuiDescription#quickMoveStack quick moves} act on the same
+ * inventory slots on both sides. Quick moves into the inventory only fill the
+ * visible slots. The widget must be validated in the same order on both sides,
+ * like any other slot widget.
+ *
+ * <p>
+ * The inventory on the client should have the same size as on the server. Its
+ * contents are filled in as the rows become visible.
+ */
+public class WVirtualItemSlot extends WPanel {
+    private static final int SCROLL_BAR_SIZE = 8;
+
+    private final Container inventory;
+    private final int slotsWide;
+    private final int slotsHigh;
+    private final WItemSlot grid;
+    protected WScrollBar scrollBar = new WScrollBar(Axis.VERTICAL);
+    @Nullable
+    private SlotScrollSync sync;
+    private int row = 0;
+
+    /**
+     * Constructs a scrollable slot grid.
+     *
+     * @param inventory the inventory
+     * @param slotsWide the number of visible slot columns
+     * @param slotsHigh the number of visible slot rows
+     */
+    public WVirtualItemSlot(Container inventory, int slotsWide, int slotsHigh) {
+        if (slotsWide <= 0 || slotsHigh <= 0)
+            throw new IllegalArgumentException("Slot grid must have at least one slot");
+
+        this.inventory = inventory;
+        this.slotsWide = slotsWide;
+        this.slotsHigh = slotsHigh;
+        this.grid = WItemSlot.of(inventory, 0, slotsWide, slotsHigh);
+
+        scrollBar.setScrollingSpeed(1);
+        scrollBar.setWindow(slotsHigh);
+        scrollBar.setMaxValue(getTotalRows());
+
+        grid.setParent(this);
+        scrollBar.setParent(this);
+        children.add(grid);
+        children.add(scrollBar);
+        layout();
+    }
+
+    /**
+     * {@return the slot grid showing the visible rows} It can be used to
+     * configure filters and listeners of the slots.
+     */
+    public WItemSlot getGrid() {
+        return grid;
+    }
+
+    /**
+     * {@return the scroll bar of this grid}
+     */
+    public WScrollBar getScrollBar() {
+        return scrollBar;
+    }
+
+    /**
+     * {@return the inventory shown in this grid}
+     */
+    public Container getInventory() {
+        return inventory;
+    }
+
+    /**
+     * {@return the first visible row}
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * {@return the total number of rows in the inventory}
+     */
+    public int getTotalRows() {
+        return (inventory.getContainerSize() + slotsWide - 1) / slotsWide;
+    }
+
+    /**
+     * Scrolls this grid so that a row is the first visible row. On the client,
+     * the server is asked to scroll as well.
+     *
+     * @param row the row, clamped to the scrollable range
+     */
+    public void setRow(int row) {
+        if (sync != null) {
+            sync.scrollTo(row);
+        } else {
+            scrollToRow(row);
+        }
+    }
+
+    private int scrollToRow(int row) {
+        int maxRow = Math.min(Math.max(getTotalRows() - slotsHigh, 0), SlotScrollSync.MAX_ROW);
+        row = Math.max(0, Math.min(row, maxRow));
+        if (row != this.row || grid.getStartIndex() != row * slotsWide) {
+            this.row = row;
+            grid.rebindPeers(row * slotsWide);
+        }
+
+        scrollBar.setMaxValue(getTotalRows());
+        scrollBar.setValue(row);
+        return row;
+    }
+
+    @Override
+    public boolean canResize() {
+        return false;
+    }
+
+    @Override
+    public void layout() {
+        grid.setLocation(0, 0);
+        scrollBar.setLocation(grid.getWidth(), 0);
+        scrollBar.setSize(SCROLL_BAR_SIZE, grid.getHeight());
+        setSize(grid.getWidth() + SCROLL_BAR_SIZE, grid.getHeight());
+    }
+
+    @Override
+    public void validate(GuiDescription c) {
+        super.validate(c);
+        if (sync == null && c instanceof SyncedGuiDescription synced) {
+            sync = synced.addSlotScrollSync(this::scrollToRow);
+            if (row != 0)
+                sync.scrollTo(row);
+        }
+    }
+
+    @Override
+    public void paint(RenderContext context, int x, int y, int mouseX, int mouseY) {
+        followScrollBar();
+        super.paint(context, x, y, mouseX, mouseY);
+    }
+
+    @Override
+    public void tick() {
+        super.tick();
+        followScrollBar();
+        if (sync != null)
+            sync.update();
+    }
+
+    private void followScrollBar() {
+        if (scrollBar.getValue() != row) {
+            setRow(scrollBar.getValue());
+        }
+    }
+
+    @Override
+    public InputResult onMouseScroll(int x, int y, double horizontalAmount, double verticalAmount) {
+        return scrollBar.onMouseScroll(0, 0, horizontalAmount, verticalAmount);
+    }
+}
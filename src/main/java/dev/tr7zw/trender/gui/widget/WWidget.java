@@ -6,6 +6,7 @@ import org.lwjgl.glfw.GLFW;
 import dev.tr7zw.trender.gui.GuiDescription;
 import dev.tr7zw.trender.gui.client.RenderContext;
 import dev.tr7zw.trender.gui.impl.VisualLogger;
+import dev.tr7zw.trender.gui.impl.jfr.TooltipEvent;
 import dev.tr7zw.trender.gui.widget.data.InputResult;
 import dev.tr7zw.trender.gui.widget.data.ObservableProperty;
 import dev.tr7zw.trender.gui.widget.focus.FocusModel;
@@ -403,8 +404,16 @@ public class WWidget {
      */
 
     public void renderTooltip(RenderContext context, int x, int y, int tX, int tY) {
+        TooltipEvent event = new TooltipEvent();
+        event.begin();
         TooltipBuilder builder = new TooltipBuilder();
         addTooltip(builder);
+        event.end();
+        if (event.shouldCommit()) {
+            event.widgetClass = getClass().getName();
+            event.lines = builder.size();
+            event.commit();
+        }
 
         if (builder.size() == 0)
             return;
@@ -0,0 +1,217 @@
+package dev.tr7zw.trender.gui.widget.data;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * An observable view whose value is derived from other observable views.
+ *
+ * <p>
+ * The value is computed lazily on the first {@link #get()} and memoized. Every
+ * observable view read during the computation becomes a dependency of this
+ * view, and the memoized value is only recomputed after one of them changes.
+ *
+ * <p>
+ * While this view has no listeners, a change in a dependency only drops the
+ * memoized value and detaches this view from its dependencies, so unobserved
+ * computed views never do any work until they are read again. While it has
+ * listeners, it recomputes eagerly on dependency changes and notifies them if
+ * the result is no longer {@linkplain Objects#equals(Object, Object) equal} to
+ * the previous one.
+ *
+ * <p>
+ * Inside a {@linkplain ObservableProperty#batch(Runnable) batch}, changed
+ * properties only notify their listeners when the batch ends. To still return
+ * current values, {@link #get()} compares the versions of the dependencies with
+ * the versions they had when the value was computed while a batch is running,
+ * and recomputes if one of them changed. Listeners of this view are still only
+ * notified after the batch.
+ *
+ * <p>
+ * Like {@link ObservableProperty}, computed views are meant to be used on the
+ * client thread only.
+ *
+ * @param <T> the computed value type
+ * @see ObservableView#computed(Supplier)
+ */
+final class ComputedView<T> implements ObservableView<T> {
+    /**
+     * The computed view that is currently evaluating on each thread, or null if
+     * none. Nested evaluations save and restore the value.
+     */
+    private static final ThreadLocal<ComputedView<?>> EVALUATING = new ThreadLocal<>();
+
+    private final Supplier<? extends T> computation;
+    private final List<ChangeListener<? super T>> listeners = new CopyOnWriteArrayList<>();
+    private final ChangeListener<Object> invalidator = (property, from, to) -> invalidate();
+    /** The dependencies, mapped to their versions when the value was computed. */
+    private Map<ObservableView<?>, Integer> dependencies = Collections.emptyMap();
+    @Nullable
+    private Set<ObservableView<?>> collectedDependencies = null;
+    private boolean valid = false;
+    private boolean computing = false;
+    /** Incremented on every computation, so dependent views can tell this one changed. */
+    private int version = 0;
+    @Nullable
+    private T value;
+    /** The value that the listeners last saw. */
+    @Nullable
+    private T reportedValue;
+
+    ComputedView(Supplier<? extends T> computation) {
+        this.computation = Objects.requireNonNull(computation, "computation");
+    }
+
+    /**
+     * Records a read of an observable view as a dependency of the currently
+     * evaluating computed view, if there is one.
+     *
+     * @param view the read view
+     */
+    static void recordAccess(ObservableView<?> view) {
+        ComputedView<?> current = EVALUATING.get();
+        if (current != null && current != view) {
+            current.collectedDependencies.add(view);
+        }
+    }
+
+    @Override
+    public boolean hasValue() {
+        recordAccess(this);
+        return true;
+    }
+
+    @Override
+    public T get() {
+        recordAccess(this);
+        if (isStale()) {
+            evaluate();
+        }
+
+        return value;
+    }
+
+    private boolean isStale() {
+        // Outside of batches, dependency changes invalidate this view right away
+        return !valid || (ObservableProperty.isBatching() && dependenciesChanged());
+    }
+
+    private boolean dependenciesChanged() {
+        for (Map.Entry<ObservableView<?>, Integer> dependency : dependencies.entrySet()) {
+            if (dependency.getKey() instanceof ComputedView<?> computed && computed.isStale()) {
+                computed.evaluate();
+            }
+
+            if (versionOf(dependency.getKey()) != dependency.getValue()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static int versionOf(ObservableView<?> view) {
+        if (view instanceof ObservableProperty<?> property) {
+            return property.getVersion();
+        } else if (view instanceof ComputedView<?> computed) {
+            return computed.version;
+        }
+
+        return 0;
+    }
+
+    private void evaluate() {
+        if (computing) {
+            throw new IllegalStateException("Cyclic dependency in computed view " + computation);
+        }
+
+        ComputedView<?> outer = EVALUATING.get();
+        Set<ObservableView<?>> collected = Collections.newSetFromMap(new IdentityHashMap<>());
+        T result;
+        collectedDependencies = collected;
+        EVALUATING.set(this);
+        computing = true;
+        try {
+            result = computation.get();
+        } finally {
+            computing = false;
+            EVALUATING.set(outer);
+            collectedDependencies = null;
+        }
+
+        for (ObservableView<?> dependency : dependencies.keySet()) {
+            if (!collected.contains(dependency)) {
+                dependency.removeListener(invalidator);
+            }
+        }
+
+        Map<ObservableView<?>, Integer> versions = new IdentityHashMap<>();
+        for (ObservableView<?> dependency : collected) {
+            if (!dependencies.containsKey(dependency)) {
+                dependency.addListener(invalidator);
+            }
+            versions.put(dependency, versionOf(dependency));
+        }
+
+        dependencies = versions;
+        value = result;
+        valid = true;
+        version++;
+    }
+
+    private void invalidate() {
+        if (!valid)
+            return;
+
+        if (listeners.isEmpty()) {
+            // Nobody is watching: drop the value and wait for the next read
+            for (ObservableView<?> dependency : dependencies.keySet()) {
+                dependency.removeListener(invalidator);
+            }
+            dependencies = Collections.emptyMap();
+            value = null;
+            reportedValue = null;
+            valid = false;
+            return;
+        }
+
+        // Reads in a batch may have recomputed the value already
+        T oldValue = reportedValue;
+        evaluate();
+        T newValue = value;
+        reportedValue = newValue;
+
+        if (!Objects.equals(oldValue, newValue)) {
+            for (ChangeListener<? super T> listener : listeners) {
+                listener.onPropertyChange(this, oldValue, newValue);
+            }
+        }
+    }
+
+    @Override
+    public void addListener(ChangeListener<? super T> listener) {
+        Objects.requireNonNull(listener);
+        // Listeners need the dependencies to be attached to hear about changes
+        if (isStale()) {
+            evaluate();
+        }
+
+        if (listeners.isEmpty())
+            reportedValue = value;
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(ChangeListener<? super T> listener) {
+        Objects.requireNonNull(listener);
+        listeners.remove(listener);
+    }
+}
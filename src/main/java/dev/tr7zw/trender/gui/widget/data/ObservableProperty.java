@@ -2,9 +2,12 @@ package dev.tr7zw.trender.gui.widget.data;
 
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * An observable mutable property. Observable properties are containers for
@@ -17,17 +20,46 @@ import java.util.Objects;
  * {@link dev.tr7zw.trender.gui.widget.WWidget#hoveredProperty()
  * hoveredProperty()}.
  *
+ * <p>
+ * Listeners are notified synchronously on every change, unless the change
+ * happens inside a {@linkplain #batch(Runnable) batch}. Batched writes to the
+ * same property are coalesced into a single change from the value before the
+ * batch to the value after it.
+ *
+ * <p>
+ * Properties must only be read and {@linkplain #set(Object) set} on the client
+ * thread. Other threads can use {@link #setLater(Object)}, which queues the
+ * write to be applied on the client thread during the next frame.
+ *
  * @param <T> the contained value type
  * @since 4.2.0
  */
 // TODO: Add filters
 public final class ObservableProperty<T> implements ObservableView<T> {
     private static final String DEFAULT_NAME = "<unnamed>";
+    /**
+     * The batch of each thread, so that widgets built on a background thread
+     * don't share batches with the client thread.
+     */
+    private static final ThreadLocal<Batch> BATCH = ThreadLocal.withInitial(Batch::new);
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ObservableProperty, Object> PENDING_VALUE = AtomicReferenceFieldUpdater
+            .newUpdater(ObservableProperty.class, Object.class, "pendingValue");
+    private static final Object NO_PENDING_VALUE = new Object();
     private boolean hasValue;
     private T value;
-    private final List<ChangeListener<? super T>> listeners = new ArrayList<>();
+    /** Incremented on every change, so computed views can tell it changed in a batch. */
+    private int version = 0;
+    // Copy-on-write so listeners (like computed views) can (un)subscribe while
+    // a change is being dispatched
+    private final List<ChangeListener<? super T>> listeners = new CopyOnWriteArrayList<>();
     private final boolean allowNull;
     private final String name;
+    /**
+     * The latest value written by {@link #setLater(Object)} that hasn't been
+     * applied yet, or {@link #NO_PENDING_VALUE}.
+     */
+    private volatile Object pendingValue = NO_PENDING_VALUE;
 
     private ObservableProperty(@Nullable T value, boolean hasValue, boolean allowNull, String name) {
         this.value = value;
@@ -64,11 +96,13 @@ public final class ObservableProperty<T> implements ObservableView<T> {
 
     @Override
     public boolean hasValue() {
+        ComputedView.recordAccess(this);
         return hasValue;
     }
 
     @Override
     public T get() {
+        ComputedView.recordAccess(this);
         if (!hasValue) {
             throw new IllegalStateException("Property " + name + " not initialised!");
         }
@@ -76,6 +110,13 @@ public final class ObservableProperty<T> implements ObservableView<T> {
         return value;
     }
 
+    /**
+     * {@return the number of times the value of this property changed}
+     */
+    int getVersion() {
+        return version;
+    }
+
     /**
      * Sets this property to a constant value.
      *
@@ -90,8 +131,106 @@ public final class ObservableProperty<T> implements ObservableView<T> {
         hasValue = true;
 
         if (oldValue != value) {
-            for (ChangeListener<? super T> listener : listeners) {
-                listener.onPropertyChange(this, oldValue, value);
+            version++;
+            Batch batch = BATCH.get();
+            if (batch.depth > 0) {
+                // Only the first write in a batch knows the real old value
+                batch.pendingChanges.putIfAbsent(this, oldValue);
+            } else {
+                fireChange(oldValue, value);
+            }
+        }
+    }
+
+    /**
+     * Sets this property to a constant value from any thread. The value is applied
+     * with {@link #set(Object)} on the client thread during the next frame.
+     *
+     * <p>
+     * If this method is called multiple times before the value is applied, only
+     * the latest value is applied.
+     *
+     * @param value the new value
+     * @throws NullPointerException if the value is null and nulls aren't allowed
+     * @see PropertyUpdateQueue
+     */
+    public void setLater(T value) {
+        if (value == null && !allowNull)
+            throw new NullPointerException("Trying to set null value for nonnull property " + name);
+
+        if (PENDING_VALUE.getAndSet(this, value) == NO_PENDING_VALUE) {
+            PropertyUpdateQueue.enqueue(this);
+        } else {
+            PropertyUpdateQueue.onCoalesced();
+        }
+    }
+
+    /**
+     * Applies the latest value written by {@link #setLater(Object)}. Must be called
+     * on the client thread.
+     */
+    @SuppressWarnings("unchecked")
+    void applyPendingValue() {
+        Object pending = PENDING_VALUE.getAndSet(this, NO_PENDING_VALUE);
+        if (pending != NO_PENDING_VALUE) {
+            set((T) pending);
+        }
+    }
+
+    private void fireChange(@Nullable T from, @Nullable T to) {
+        for (ChangeListener<? super T> listener : listeners) {
+            listener.onPropertyChange(this, from, to);
+        }
+    }
+
+    /**
+     * Runs an action with deferred change notifications. Listeners of properties
+     * modified by the action are notified once after the outermost batch finishes,
+     * with a single change from the value before the batch to the final value.
+     * Properties that end up with their original value don't notify at all.
+     *
+     * <p>
+     * Batches can be nested; notifications are only dispatched when the outermost
+     * batch ends. Each thread has its own batch, which only defers changes made on
+     * that thread.
+     *
+     * @param action the action that modifies properties
+     */
+    public static void batch(Runnable action) {
+        Objects.requireNonNull(action, "action");
+        Batch batch = BATCH.get();
+        batch.depth++;
+        try {
+            action.run();
+        } finally {
+            if (--batch.depth == 0) {
+                flushPendingChanges(batch.pendingChanges);
+            }
+        }
+    }
+
+    /**
+     * {@return whether change notifications on the current thread are being
+     * deferred by a {@linkplain #batch(Runnable) batch}}
+     */
+    public static boolean isBatching() {
+        return BATCH.get().depth > 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void flushPendingChanges(Map<ObservableProperty<?>, Object> pendingChanges) {
+        if (pendingChanges.isEmpty())
+            return;
+
+        // Copy first: listeners are free to modify properties or start new batches
+        Map<ObservableProperty<?>, Object> changes = new LinkedHashMap<>(pendingChanges);
+        pendingChanges.clear();
+
+        for (Map.Entry<ObservableProperty<?>, Object> change : changes.entrySet()) {
+            ObservableProperty<Object> property = (ObservableProperty<Object>) change.getKey();
+            Object oldValue = change.getValue();
+            if (oldValue != property.value) {
+                property.fireChange(oldValue, property.value);
             }
         }
     }
@@ -146,6 +285,16 @@ public final class ObservableProperty<T> implements ObservableView<T> {
         listeners.remove(listener);
     }
 
+    private static final class Batch {
+        /**
+         * The properties changed in the current batch, mapped to their values before
+         * the batch. Properties use identity equality, so this keeps them in
+         * insertion order without merging distinct instances.
+         */
+        final Map<ObservableProperty<?>, Object> pendingChanges = new LinkedHashMap<>();
+        int depth = 0;
+    }
+
     /**
      * A builder for properties.
      *
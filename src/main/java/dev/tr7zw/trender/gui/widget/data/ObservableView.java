@@ -3,6 +3,8 @@ package dev.tr7zw.trender.gui.widget.data;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 /**
@@ -41,6 +43,61 @@ public interface ObservableView<T> extends Supplier<T> {
         return Optional.ofNullable(getOrNull());
     }
 
+    /**
+     * Creates a computed view that applies a function to the value of this view.
+     * The function is only reapplied after this view changes.
+     *
+     * @param mapper the mapping function
+     * @param <R>    the mapped value type
+     * @return a lazily computed view of the mapped value
+     * @see #computed(Supplier)
+     */
+    default <R> ObservableView<R> map(Function<? super T, ? extends R> mapper) {
+        return computed(() -> mapper.apply(get()));
+    }
+
+    /**
+     * Creates a computed view that combines the values of two views. The combiner
+     * is only reapplied after one of the views changes.
+     *
+     * @param first    the first view
+     * @param second   the second view
+     * @param combiner the combining function
+     * @param <A>      the value type of the first view
+     * @param <B>      the value type of the second view
+     * @param <R>      the combined value type
+     * @return a lazily computed view of the combined value
+     * @see #computed(Supplier)
+     */
+    static <A, B, R> ObservableView<R> combine(ObservableView<A> first, ObservableView<B> second,
+            BiFunction<? super A, ? super B, ? extends R> combiner) {
+        return computed(() -> combiner.apply(first.get(), second.get()));
+    }
+
+    /**
+     * Creates a computed view from an arbitrary computation.
+     *
+     * <p>
+     * The computation runs lazily when the value is first requested and its result
+     * is memoized. All {@linkplain ObservableProperty observable properties} and
+     * computed views read by the computation are tracked automatically as
+     * dependencies, and the computation only reruns after one of them changes.
+     * Listeners of the computed view are notified when the recomputed value isn't
+     * {@linkplain java.util.Objects#equals(Object, Object) equal} to the previous
+     * one.
+     *
+     * <p>
+     * The computation should only read other observable values and must not have
+     * side effects.
+     *
+     * @param computation the computation
+     * @param <R>         the computed value type
+     * @return a lazily computed view
+     */
+    static <R> ObservableView<R> computed(Supplier<? extends R> computation) {
+        return new ComputedView<>(computation);
+    }
+
     /**
      * Adds a change listener to this property view.
      *
@@ -0,0 +1,112 @@
+package dev.tr7zw.trender.gui.widget.data;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The queue behind {@link ObservableProperty#setLater(Object)}.
+ *
+ * <p>
+ * Any thread can write to a property through the queue without locking. Each
+ * property is queued at most once at a time, with only its latest written value
+ * being kept, so the queue depth is bounded by the number of distinct
+ * properties written between two frames.
+ *
+ * <p>
+ * The queue is {@linkplain #drain() drained} once per frame on the client
+ * thread. All queued writes are applied in a single
+ * {@linkplain ObservableProperty#batch(Runnable) batch}.
+ */
+public final class PropertyUpdateQueue {
+    private static final Queue<ObservableProperty<?>> queue = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger depth = new AtomicInteger();
+    private static final AtomicInteger peakDepth = new AtomicInteger();
+    private static final LongAdder posted = new LongAdder();
+    private static final LongAdder coalesced = new LongAdder();
+    private static final LongAdder applied = new LongAdder();
+
+    private PropertyUpdateQueue() {
+    }
+
+    static void enqueue(ObservableProperty<?> property) {
+        posted.increment();
+        // Count before adding so a concurrent drain never sees a negative depth
+        peakDepth.accumulateAndGet(depth.incrementAndGet(), Math::max);
+        queue.add(property);
+    }
+
+    static void onCoalesced() {
+        posted.increment();
+        coalesced.increment();
+    }
+
+    /**
+     * Applies all queued property writes. Must be called on the client thread.
+     *
+     * <p>
+     * This is called automatically at the start of every frame, and only needs to
+     * be called manually to apply the queued writes early.
+     */
+    public static void drain() {
+        if (queue.isEmpty())
+            return;
+
+        ObservableProperty.batch(() -> {
+            ObservableProperty<?> property;
+            while ((property = queue.poll()) != null) {
+                depth.decrementAndGet();
+                applied.increment();
+                property.applyPendingValue();
+            }
+        });
+    }
+
+    /**
+     * {@return the number of properties currently waiting to be applied}
+     */
+    public static int getQueueDepth() {
+        return depth.get();
+    }
+
+    /**
+     * {@return the highest queue depth seen since the last
+     * {@linkplain #resetMetrics() reset}}
+     */
+    public static int getPeakQueueDepth() {
+        return peakDepth.get();
+    }
+
+    /**
+     * {@return the number of writes posted to the queue}
+     */
+    public static long getPostedCount() {
+        return posted.sum();
+    }
+
+    /**
+     * {@return the number of posted writes that replaced a pending write to the
+     * same property and thus were never applied separately}
+     */
+    public static long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * {@return the number of property updates applied on the client thread}
+     */
+    public static long getAppliedCount() {
+        return applied.sum();
+    }
+
+    /**
+     * Resets the write counters and the peak queue depth.
+     */
+    public static void resetMetrics() {
+        posted.reset();
+        coalesced.reset();
+        applied.reset();
+        peakDepth.set(depth.get());
+    }
+}
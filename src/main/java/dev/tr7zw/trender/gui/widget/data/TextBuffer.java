@@ -0,0 +1,359 @@
+package dev.tr7zw.trender.gui.widget.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntUnaryOperator;
+
+import org.jetbrains.annotations.Nullable;
+
+import it.unimi.dsi.fastutil.chars.Char2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+/**
+ * An editable text model backed by a gap buffer, with an index of line starts
+ * and cached character advances.
+ *
+ * <p>
+ * Inserting and deleting at the same position, as when typing, only moves the
+ * gap once, and doesn't copy the rest of the text. The start of every line is
+ * kept in a sorted index that's updated on each edit, so the line of a
+ * character index is found by binary search. The horizontal advances of each
+ * line are computed once per edit of that line as prefix sums of cached
+ * per-character widths, so both the X position of a column and the column at
+ * an X position are found without measuring the text again.
+ *
+ * <p>
+ * Lines are separated by {@code '\n'}; the separator belongs to the line it
+ * ends. Advances are measured per {@code char}, so surrogate pairs and
+ * formatting codes are measured as their separate characters.
+ */
+public final class TextBuffer implements CharSequence {
+    private static final int MIN_GAP = 16;
+
+    private final IntUnaryOperator advanceFunction;
+    private final int[] asciiAdvances = new int[128];
+    private final Char2IntOpenHashMap otherAdvances = new Char2IntOpenHashMap();
+
+    private char[] chars = new char[MIN_GAP];
+    private int gapStart = 0;
+    private int gapEnd = MIN_GAP;
+    /** The index of the first character of each line. */
+    private final IntArrayList lineStarts = new IntArrayList();
+    /** The prefix sums of the advances of each line, or null if not computed. */
+    private final List<int[]> linePrefixes = new ArrayList<>();
+    @Nullable
+    private String string = "";
+
+    /**
+     * Constructs an empty text buffer.
+     *
+     * @param advanceFunction the function that measures the horizontal advance of
+     *                        a character, passed as its char value
+     */
+    public TextBuffer(IntUnaryOperator advanceFunction) {
+        this.advanceFunction = Objects.requireNonNull(advanceFunction, "advanceFunction");
+        Arrays.fill(asciiAdvances, -1);
+        otherAdvances.defaultReturnValue(-1);
+        lineStarts.add(0);
+        linePrefixes.add(null);
+    }
+
+    @Override
+    public int length() {
+        return chars.length - (gapEnd - gapStart);
+    }
+
+    @Override
+    public char charAt(int index) {
+        Objects.checkIndex(index, length());
+        return index < gapStart ? chars[index] : chars[index + gapEnd - gapStart];
+    }
+
+    @Override
+    public String subSequence(int start, int end) {
+        Objects.checkFromToIndex(start, end, length());
+        int gap = gapEnd - gapStart;
+        if (end <= gapStart)
+            return new String(chars, start, end - start);
+        if (start >= gapStart)
+            return new String(chars, start + gap, end - start);
+
+        StringBuilder builder = new StringBuilder(end - start);
+        builder.append(chars, start, gapStart - start);
+        builder.append(chars, gapEnd, end - gapStart);
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        if (string == null)
+            string = subSequence(0, length());
+        return string;
+    }
+
+    /**
+     * Replaces the whole text.
+     *
+     * @param text the new text
+     */
+    public void setText(CharSequence text) {
+        chars = new char[text.length() + MIN_GAP];
+        gapStart = 0;
+        gapEnd = chars.length;
+        lineStarts.clear();
+        lineStarts.add(0);
+        linePrefixes.clear();
+        linePrefixes.add(null);
+        string = "";
+        insert(0, text);
+    }
+
+    /**
+     * Inserts text.
+     *
+     * @param index the index to insert at
+     * @param text  the inserted text
+     */
+    public void insert(int index, CharSequence text) {
+        Objects.checkIndex(index, length() + 1);
+        int count = text.length();
+        if (count == 0)
+            return;
+
+        int line = getLineOf(index);
+        moveGap(index);
+        ensureGap(count);
+        IntArrayList newStarts = null;
+        for (int i = 0; i < count; i++) {
+            char c = text.charAt(i);
+            chars[gapStart + i] = c;
+            if (c == '\n') {
+                if (newStarts == null)
+                    newStarts = new IntArrayList();
+                newStarts.add(index + i + 1);
+            }
+        }
+        gapStart += count;
+
+        int[] starts = lineStarts.elements();
+        for (int l = line + 1; l < lineStarts.size(); l++) {
+            starts[l] += count;
+        }
+        if (newStarts != null) {
+            lineStarts.addElements(line + 1, newStarts.elements(), 0, newStarts.size());
+            linePrefixes.addAll(line + 1, Collections.nCopies(newStarts.size(), null));
+        }
+        linePrefixes.set(line, null);
+        string = null;
+    }
+
+    /**
+     * Deletes a range of text.
+     *
+     * @param start the start index, inclusive
+     * @param end   the end index, exclusive
+     */
+    public void delete(int start, int end) {
+        Objects.checkFromToIndex(start, end, length());
+        int count = end - start;
+        if (count == 0)
+            return;
+
+        int line = getLineOf(start);
+        moveGap(start);
+        gapEnd += count;
+
+        // The lines starting inside the deleted range are merged into the first one
+        int from = line + 1;
+        int to = from;
+        while (to < lineStarts.size() && lineStarts.getInt(to) <= end) {
+            to++;
+        }
+        lineStarts.removeElements(from, to);
+        linePrefixes.subList(from, to).clear();
+
+        int[] starts = lineStarts.elements();
+        for (int l = from; l < lineStarts.size(); l++) {
+            starts[l] -= count;
+        }
+        linePrefixes.set(line, null);
+        string = null;
+    }
+
+    private void moveGap(int index) {
+        if (index < gapStart) {
+            int count = gapStart - index;
+            System.arraycopy(chars, index, chars, gapEnd - count, count);
+            gapStart = index;
+            gapEnd -= count;
+        } else if (index > gapStart) {
+            int count = index - gapStart;
+            System.arraycopy(chars, gapEnd, chars, gapStart, count);
+            gapStart += count;
+            gapEnd += count;
+        }
+    }
+
+    private void ensureGap(int count) {
+        if (gapEnd - gapStart >= count)
+            return;
+
+        int length = length();
+        char[] grown = new char[Math.max(chars.length * 2, length + count + MIN_GAP)];
+        int after = chars.length - gapEnd;
+        System.arraycopy(chars, 0, grown, 0, gapStart);
+        System.arraycopy(chars, gapEnd, grown, grown.length - after, after);
+        gapEnd = grown.length - after;
+        chars = grown;
+    }
+
+    /**
+     * {@return the number of lines, which is at least 1}
+     */
+    public int getLineCount() {
+        return lineStarts.size();
+    }
+
+    /**
+     * Finds the line of a character index.
+     *
+     * @param index the character index, from 0 to {@link #length()}
+     * @return the line
+     */
+    public int getLineOf(int index) {
+        int low = 0;
+        int high = lineStarts.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (lineStarts.getInt(middle) <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the index of the first character of a line.
+     *
+     * @param line the line
+     * @return the start index
+     */
+    public int getLineStart(int line) {
+        return lineStarts.getInt(line);
+    }
+
+    /**
+     * Gets the index after the last character of a line, excluding the line
+     * separator.
+     *
+     * @param line the line
+     * @return the end index
+     */
+    public int getLineEnd(int line) {
+        return line + 1 < lineStarts.size() ? lineStarts.getInt(line + 1) - 1 : length();
+    }
+
+    /**
+     * Gets the text of a line, excluding the line separator.
+     *
+     * @param line the line
+     * @return the line text
+     */
+    public String getLine(int line) {
+        return subSequence(getLineStart(line), getLineEnd(line));
+    }
+
+    /**
+     * Gets the X position of a column in a line.
+     *
+     * @param line   the line
+     * @param column the column, clamped to the line length
+     * @return the total advance of the characters before the column
+     */
+    public int getAdvance(int line, int column) {
+        int[] prefix = getPrefix(line);
+        return prefix[Math.max(0, Math.min(column, prefix.length - 1))];
+    }
+
+    /**
+     * {@return the width of a line}
+     *
+     * @param line the line
+     */
+    public int getLineWidth(int line) {
+        int[] prefix = getPrefix(line);
+        return prefix[prefix.length - 1];
+    }
+
+    /**
+     * Finds the caret column closest to an X position in a line.
+     *
+     * @param line the line
+     * @param x    the X position
+     * @return the column, from 0 to the line length
+     */
+    public int getColumnAt(int line, int x) {
+        int[] prefix = getPrefix(line);
+        if (x <= 0)
+            return 0;
+        if (x >= prefix[prefix.length - 1])
+            return prefix.length - 1;
+
+        // The first column that is at or after x
+        int low = 0;
+        int high = prefix.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (prefix[middle] < x) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return x - prefix[low - 1] < prefix[low] - x ? low - 1 : low;
+    }
+
+    /**
+     * Forgets all measured advances, for example after the font changed.
+     */
+    public void invalidateAdvances() {
+        Arrays.fill(asciiAdvances, -1);
+        otherAdvances.clear();
+        Collections.fill(linePrefixes, null);
+    }
+
+    private int[] getPrefix(int line) {
+        int[] prefix = linePrefixes.get(line);
+        if (prefix == null) {
+            int start = getLineStart(line);
+            int end = getLineEnd(line);
+            prefix = new int[end - start + 1];
+            for (int i = start; i < end; i++) {
+                prefix[i - start + 1] = prefix[i - start] + getCharAdvance(charAt(i));
+            }
+            linePrefixes.set(line, prefix);
+        }
+        return prefix;
+    }
+
+    private int getCharAdvance(char c) {
+        if (c < asciiAdvances.length) {
+            int advance = asciiAdvances[c];
+            if (advance < 0)
+                advance = asciiAdvances[c] = advanceFunction.applyAsInt(c);
+            return advance;
+        }
+
+        int advance = otherAdvances.get(c);
+        if (advance < 0) {
+            advance = advanceFunction.applyAsInt(c);
+            otherAdvances.put(c, advance);
+        }
+        return advance;
+    }
+}